@@ -6,6 +6,11 @@ package fr.michaelm.util;
 
 import java.io.UnsupportedEncodingException;
 import java.lang.Character;
+import java.nio.charset.Charset;
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * CharUtil offers some static methods and constants to transpose strings
@@ -58,6 +63,73 @@ public final class CharUtil {
         return sb.toString();
     }
 
+    /**
+     * Fold a String using a two-level folding table indexed by the UTF-16
+     * value of each character, as {@link #UNICODE_TO_ASCII} or
+     * {@link #UNICODE_TO_ASCII38}.
+     * The first level is indexed by the high byte of the character and the
+     * second level by its low byte, so that each character is transposed
+     * with two array lookups and without any encoding.
+     * As with {@link #transpose}, each char of a surrogate pair is folded
+     * independently.
+     *
+     * @param input input String to be folded
+     * @param table a 256 x 256 folding table
+     * @return the folded String
+     */
+    public static String fold(String input, String[][] table) {
+        if (input == null || table == null || input.length() == 0) return input;
+        return fold(input, table, new StringBuilder(input.length())).toString();
+    }
+
+    /**
+     * Appends input folded with table to sb.
+     *
+     * @param input input sequence to be folded
+     * @param table a 256 x 256 folding table
+     * @param sb the StringBuilder to append to
+     * @return sb
+     */
+    public static StringBuilder fold(CharSequence input, String[][] table, StringBuilder sb) {
+        for (int i = 0, len = input.length(); i < len; i++) {
+            char c = input.charAt(i);
+            sb.append(table[c >>> 8][c & 0xFF]);
+        }
+        return sb;
+    }
+
+    /**
+     * Creates a two-level folding table, to be used with {@link #fold},
+     * equivalent to a transposition table made for a single-byte charset :
+     * for any String s, fold(s, createFoldingTable(charset, table)) equals
+     * transpose(s, charset, table), but does not need to encode s.
+     *
+     * @param charset a single-byte charset the table transposes from
+     * @param table array used to map encoded characters to new strings
+     * @return a 256 x 256 folding table
+     * @throws UnsupportedEncodingException if the named charset is not supported
+     */
+    public static String[][] createFoldingTable(String charset, String[] table)
+                                            throws UnsupportedEncodingException {
+        // characters which cannot be encoded are transposed as '?'
+        byte[] unknown = "?".getBytes(charset);
+        String[] unknownBlock = new String[256];
+        Arrays.fill(unknownBlock, table[unknown[unknown.length-1] & 0xFF]);
+        String[][] foldingTable = new String[256][];
+        Arrays.fill(foldingTable, unknownBlock);
+        for (int i = 0 ; i < 256 ; i++) {
+            int hi = new String(new byte[]{(byte)i}, charset).charAt(0) >>> 8;
+            if (foldingTable[hi] != unknownBlock) continue;
+            String[] block = new String[256];
+            for (int lo = 0 ; lo < 256 ; lo++) {
+                byte[] bytes = new String(new char[]{(char)(hi << 8 | lo)}).getBytes(charset);
+                block[lo] = table[bytes[bytes.length-1] & 0xFF];
+            }
+            foldingTable[hi] = block;
+        }
+        return foldingTable;
+    }
+
     /**
      * Prints the current code page to the standard output stream in a human
      * readable format.
@@ -719,4 +791,168 @@ public final class CharUtil {
         "Y"    //255 ÿ \u00FF
     };
 
+    /**
+     * Latin letters which have no canonical decomposition, and Greek and
+     * Cyrillic letters transliterated into latin characters (capital letters
+     * only, small letter mappings are derived).
+     * As characters are folded one at a time, multi-letter transliterations
+     * of capital letters are title-cased, to fit names written with an
+     * initial capital (Θεσσαλονίκη gives Thessaloniki). Words written in
+     * capital letters only get mixed-case (ΘΕΟΣ gives ThEOS), unless they
+     * are folded with {@link #UNICODE_TO_ASCII38}.
+     */
+    private static final String[] TRANSLITERATIONS = new String[] {
+        // Latin
+        "Đ", "D",   "Ħ", "H",   "ı", "i",   "ĸ", "k",
+        "Ŀ", "L",   "Ł", "L",   "ŉ", "n",   "Ŋ", "N",
+        "Ŧ", "T",   "ƀ", "b",   "Ɓ", "B",   "Ƈ", "C",
+        "Ɖ", "D",   "Ɗ", "D",   "Ǝ", "E",   "Ə", "E",
+        "Ɛ", "E",   "Ɠ", "G",   "Ɨ", "I",   "Ƙ", "K",
+        "ƚ", "l",   "Ɲ", "N",   "Ɵ", "O",   "Ƥ", "P",
+        "Ƭ", "T",   "Ʈ", "T",   "Ʋ", "V",   "Ƴ", "Y",
+        "Ƶ", "Z",   "Ȥ", "Z",   "Ⱥ", "A",   "Ȼ", "C",
+        "Ƚ", "L",   "Ⱦ", "T",   "Ƀ", "B",   "Ʉ", "U",
+        "Ɇ", "E",   "Ɍ", "R",   "Ɏ", "Y",   "ẞ", "SS",
+        // Greek (ELOT 743, simplified)
+        "Α", "A",   "Β", "V",   "Γ", "G",   "Δ", "D",
+        "Ε", "E",   "Ζ", "Z",   "Η", "I",   "Θ", "TH",
+        "Ι", "I",   "Κ", "K",   "Λ", "L",   "Μ", "M",
+        "Ν", "N",   "Ξ", "X",   "Ο", "O",   "Π", "P",
+        "Ρ", "R",   "Σ", "S",   "Τ", "T",   "Υ", "Y",
+        "Φ", "F",   "Χ", "CH",  "Ψ", "PS",  "Ω", "O",
+        "ς", "s",
+        // Cyrillic (BGN/PCGN, simplified)
+        "А", "A",   "Б", "B",   "В", "V",   "Г", "G",
+        "Д", "D",   "Е", "E",   "Ж", "ZH",  "З", "Z",
+        "И", "I",   "Й", "Y",   "К", "K",   "Л", "L",
+        "М", "M",   "Н", "N",   "О", "O",   "П", "P",
+        "Р", "R",   "С", "S",   "Т", "T",   "У", "U",
+        "Ф", "F",   "Х", "KH",  "Ц", "TS",  "Ч", "CH",
+        "Ш", "SH",  "Щ", "SHCH","Ъ", "",    "Ы", "Y",
+        "Ь", "",    "Э", "E",   "Ю", "YU",  "Я", "YA",
+        "Ђ", "DJ",  "Є", "YE",  "Ѕ", "DZ",  "І", "I",
+        "Ї", "YI",  "Ј", "J",   "Љ", "LJ",  "Њ", "NJ",
+        "Ћ", "C",   "Џ", "DZ",  "Ґ", "G"
+    };
+
+    /**
+     * High bytes of the UTF-16 blocks covered by the unicode folding tables :
+     * Latin (Basic Latin, Latin-1, Extended A and B, Extended Additional,
+     * Extended C and D), Greek and Coptic, Greek Extended, Cyrillic,
+     * General Punctuation, Letterlike Symbols, Alphabetic Presentation Forms
+     * (latin ligatures) and Halfwidth and Fullwidth Forms. Blocks include all
+     * the characters of the windows-1252 codepage.
+     */
+    private static final int[] FOLDED_BLOCKS = new int[] {
+        0x00, 0x01, 0x02, 0x03, 0x04, 0x05, 0x1E, 0x1F, 0x20, 0x21, 0x2C, 0xA7, 0xFB, 0xFF
+    };
+
+    /**
+     * Each character of the Latin, Greek and Cyrillic blocks of the Basic
+     * Multilingual Plane expressed as a printable ascii character string
+     * (0x20-0x7E) or the empty string.
+     * Characters which can be encoded in windows-1252 are transposed as in
+     * {@link #CP1252_TO_ASCII}, other characters are decomposed with
+     * {@link java.text.Normalizer} (NFKD), their diacritics are removed and
+     * greek and cyrillic letters are transliterated.
+     * Characters which cannot be folded are transposed into "?", as with
+     * {@link #transpose(String, String, String[])}.
+     * The table is a two-level array to be used with {@link #fold}.
+     */
+    public static final String[][] UNICODE_TO_ASCII;
+
+    /**
+     * Same as {@link #UNICODE_TO_ASCII}, but using only the 38 characters
+     * of {@link #CP1252_TO_ASCII38} : [ 0-9A-Z/].
+     */
+    public static final String[][] UNICODE_TO_ASCII38;
+
+    static {
+        Map<Character,String> translit = new HashMap<>();
+        for (int i = 0 ; i < TRANSLITERATIONS.length ; i += 2) {
+            char c = TRANSLITERATIONS[i].charAt(0);
+            String s = TRANSLITERATIONS[i+1];
+            // multi-letter transliterations of capital letters are title-cased
+            translit.put(c, s.length() < 2 ? s : s.charAt(0) + s.substring(1).toLowerCase());
+            char lc = Character.toLowerCase(c);
+            if (lc != c && !translit.containsKey(lc)) translit.put(lc, s.toLowerCase());
+        }
+        Map<Character,Integer> cp1252 = new HashMap<>();
+        Charset charset = Charset.forName("windows-1252");
+        for (int i = 0 ; i < 256 ; i++) {
+            char c = new String(new byte[]{(byte)i}, charset).charAt(0);
+            if (c != '\uFFFD') cp1252.put(c, i);
+        }
+        UNICODE_TO_ASCII = createFoldingTable(CP1252_TO_ASCII, null, cp1252, translit);
+        UNICODE_TO_ASCII38 = createFoldingTable(CP1252_TO_ASCII38, UNICODE_TO_ASCII, cp1252, translit);
+    }
+
+    /**
+     * Creates a two-level folding table.
+     *
+     * @param cp1252Table the table used for characters of the windows-1252 codepage
+     * @param asciiTable if not null, other characters are folded with this
+     *                   table, then transposed with cp1252Table
+     */
+    private static String[][] createFoldingTable(String[] cp1252Table,
+                                                 String[][] asciiTable,
+                                                 Map<Character,Integer> cp1252,
+                                                 Map<Character,String> translit) {
+        String unknown = cp1252Table['?'];
+        String[] unknownBlock = new String[256];
+        Arrays.fill(unknownBlock, unknown);
+        String[][] table = new String[256][];
+        Arrays.fill(table, unknownBlock);
+        for (int hi : FOLDED_BLOCKS) {
+            String[] block = new String[256];
+            for (int lo = 0 ; lo < 256 ; lo++) {
+                char c = (char)(hi << 8 | lo);
+                String s;
+                if (cp1252.containsKey(c)) s = cp1252Table[cp1252.get(c)];
+                else if (asciiTable != null) {
+                    String ascii = asciiTable[hi][lo];
+                    StringBuilder sb = new StringBuilder();
+                    for (int i = 0 ; i < ascii.length() ; i++) {
+                        sb.append(cp1252Table[ascii.charAt(i)]);
+                    }
+                    s = sb.toString();
+                }
+                else s = foldChar(c, cp1252Table, cp1252, translit);
+                block[lo] = s == null ? unknown : s;
+            }
+            table[hi] = block;
+        }
+        return table;
+    }
+
+    /**
+     * Folds a single character into ascii, or returns null if it cannot be
+     * folded. Combining marks, standalone or decomposed, are removed.
+     */
+    private static String foldChar(char c, String[] cp1252Table,
+                                   Map<Character,Integer> cp1252,
+                                   Map<Character,String> translit) {
+        if (isMark(c)) return "";
+        if (cp1252.containsKey(c)) return cp1252Table[cp1252.get(c)];
+        if (translit.containsKey(c)) return translit.get(c);
+        if (Character.isSurrogate(c)) return null;
+        String d = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFKD);
+        if (d.length() == 1 && d.charAt(0) == c) return null;
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0 ; i < d.length() ; i++) {
+            String s = foldChar(d.charAt(i), cp1252Table, cp1252, translit);
+            if (s == null) return null;
+            sb.append(s);
+        }
+        return sb.toString();
+    }
+
+    // Combining marks (diacritics) are removed by the folding tables
+    private static boolean isMark(char c) {
+        int type = Character.getType(c);
+        return type == Character.NON_SPACING_MARK ||
+               type == Character.COMBINING_SPACING_MARK ||
+               type == Character.ENCLOSING_MARK;
+    }
+
 }
\ No newline at end of file
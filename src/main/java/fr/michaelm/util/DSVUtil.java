@@ -108,7 +108,7 @@ public final class DSVUtil {
     *
     * @param file the filename of the file to be sorted
     */
-    public char guessCharDelimiter(String file) throws IOException {
+    public static char guessCharDelimiter(String file) throws IOException {
         Pattern pattern = guessDelimiter(file);
         if (pattern == TAB) return '\t';
         else if (pattern == COMMA) return ',';
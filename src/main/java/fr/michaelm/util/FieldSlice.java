@@ -0,0 +1,146 @@
+/*
+ * (C) 2026 michael.michaud@free.fr
+ */
+
+package fr.michaelm.util;
+
+/**
+ * FieldSlice is a reusable view over the fields of a delimited CharSequence.
+ * Splitting a line only records the start and end offsets of each field in
+ * an internal int array which grows when needed and is reused by the next
+ * {@link #split} call, so that splitting successive lines of a file
+ * allocates nothing. Strings are created only when a field is explicitly
+ * materialized with {@link #getString(int)}.
+ * <p>A FieldSlice is not thread-safe : use one instance per thread.</p>
+ *
+ * @author Micha&euml;l Michaud
+ * @version 0.1 (2026-10-19)
+ */
+public final class FieldSlice {
+
+    private CharSequence source;
+
+    // start of field i at 2*i, end (exclusive) of field i at 2*i+1
+    private int[] offsets;
+
+    private int size;
+
+    /** Creates an empty FieldSlice. */
+    public FieldSlice() {
+        this(16);
+    }
+
+    /**
+     * Creates an empty FieldSlice able to hold capacity fields before
+     * growing.
+     */
+    public FieldSlice(int capacity) {
+        offsets = new int[2 * Math.max(1, capacity)];
+    }
+
+    /**
+     * Splits s into fields separated by delimiter.
+     * Follows the same conventions as
+     * {@link StringUtil#split(String, char, boolean)} : an empty sequence
+     * has a single empty field and a null sequence has no field.
+     *
+     * @param s the sequence to split
+     * @param delimiter the delimiter character
+     * @param trim whether the bounds of each field should be trimmed
+     * @return this FieldSlice
+     */
+    public FieldSlice split(CharSequence s, char delimiter, boolean trim) {
+        source = s;
+        if (s == null) {
+            size = 0;
+            return this;
+        }
+        int n = StringUtil.split(s, delimiter, trim, offsets);
+        if (n * 2 > offsets.length) {
+            offsets = new int[Math.max(n * 2, offsets.length * 2)];
+            n = StringUtil.split(s, delimiter, trim, offsets);
+        }
+        size = n;
+        return this;
+    }
+
+    /** Returns the sequence this FieldSlice is a view of. */
+    public CharSequence getSource() {
+        return source;
+    }
+
+    /** Returns the number of fields. */
+    public int size() {
+        return size;
+    }
+
+    /** Returns the offset of the first character of field i in the source. */
+    public int start(int i) {
+        checkIndex(i);
+        return offsets[2 * i];
+    }
+
+    /** Returns the offset following the last character of field i in the source. */
+    public int end(int i) {
+        checkIndex(i);
+        return offsets[2 * i + 1];
+    }
+
+    /** Returns the length of field i. */
+    public int length(int i) {
+        checkIndex(i);
+        return offsets[2 * i + 1] - offsets[2 * i];
+    }
+
+    /** Returns the character at index j of field i. */
+    public char charAt(int i, int j) {
+        checkIndex(i);
+        int start = offsets[2 * i];
+        if (j < 0 || start + j >= offsets[2 * i + 1]) {
+            throw new IndexOutOfBoundsException("Index " + j + " out of field " + i);
+        }
+        return source.charAt(start + j);
+    }
+
+    /**
+     * Returns true if field i has the same characters as cs, without
+     * materializing the field.
+     */
+    public boolean contentEquals(int i, CharSequence cs) {
+        checkIndex(i);
+        int start = offsets[2 * i];
+        int len = offsets[2 * i + 1] - start;
+        if (cs == null || cs.length() != len) return false;
+        for (int j = 0 ; j < len ; j++) {
+            if (source.charAt(start + j) != cs.charAt(j)) return false;
+        }
+        return true;
+    }
+
+    /** Returns field i as a CharSequence sharing the source when possible. */
+    public CharSequence get(int i) {
+        checkIndex(i);
+        return source.subSequence(offsets[2 * i], offsets[2 * i + 1]);
+    }
+
+    /** Materializes field i as a String. */
+    public String getString(int i) {
+        checkIndex(i);
+        return source.subSequence(offsets[2 * i], offsets[2 * i + 1]).toString();
+    }
+
+    /** Materializes all the fields as an array of Strings. */
+    public String[] toArray() {
+        if (source == null) return null;
+        String[] array = new String[size];
+        for (int i = 0 ; i < size ; i++) array[i] = getString(i);
+        return array;
+    }
+
+    private void checkIndex(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Field " + i + " out of " + size + " field(s)");
+        }
+    }
+
+}
@@ -8,8 +8,11 @@ import java.io.UnsupportedEncodingException;
 
 import static fr.michaelm.util.CharUtil.*;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * StringUtil is a utility class including static methods to check nullity
@@ -61,36 +64,91 @@ public final class StringUtil {
      * considered as normal characters.
      * Using normalize is about 5x faster than using an equivalent compiled
      * regex ([ ]+) and trim(). 
+     * If s is already normalized, s itself is returned without any copy :
+     * looking for double-spaces relies on String.indexOf, which the JVM
+     * compiles into a word-at-a-time (or SIMD) scan of the String, and the
+     * parts of the String located between double-spaces are copied in bulk.
      * @param s the string to normalize
      * @return a normalized String
      */
-     public static String normalize(String s) {
-         if ( s == null ) {
+    public static String normalize(String s) {
+        if (s == null) {
             return "";
-         }
-         else {
+        }
+        int len = s.length();
+        if (len == 0) return s;
+        if (s.charAt(0) <= ' ' || s.charAt(len-1) <= ' ') {
             s = s.trim();
-            int len = s.length();
-            if (len < 4) return s;
-            StringBuilder b = new StringBuilder( len - 1 );
-            boolean removeSpaces = false;
-            for ( int i = 0; i < len; i++ ) {
-                char c = s.charAt( i );
-                if ( c != ' ') {
-                    b.append( c );
-                    removeSpaces = false;
-                }
-                else {
-                    if (!removeSpaces ) {// first space
-                        b.append( c );
-                        removeSpaces = true;
-                    }
-                }
+            len = s.length();
+        }
+        int i = s.indexOf("  ");
+        if (i < 0) return s;
+        StringBuilder b = new StringBuilder(len - 1);
+        int start = 0;
+        while (i >= 0) {
+            b.append(s, start, i+1);
+            start = i + 2;
+            while (s.charAt(start) == ' ') start++; // s is trimmed
+            i = s.indexOf("  ", start);
+        }
+        return b.append(s, start, len).toString();
+    }
+
+    /**
+     * Returns a canonical form of the CharSequence, as
+     * {@link #normalize(String)}, but returns the input instance itself if
+     * it is already normalized.
+     * @param s the sequence to normalize
+     * @return a normalized CharSequence (s itself if nothing has to be changed)
+     */
+    public static CharSequence normalize(CharSequence s) {
+        if (s == null) return "";
+        if (isNormalized(s)) return s;
+        return normalize(s, new StringBuilder(s.length())).toString();
+    }
+
+    /**
+     * Appends the canonical form of s (see {@link #normalize(String)}) to sb.
+     * A null sequence appends nothing.
+     * @param s the sequence to normalize
+     * @param sb the StringBuilder to append to
+     * @return sb
+     */
+    public static StringBuilder normalize(CharSequence s, StringBuilder sb) {
+        if (s == null) return sb;
+        int start = 0, end = s.length();
+        while (start < end && s.charAt(start) <= ' ') start++;
+        while (end > start && s.charAt(end-1) <= ' ') end--;
+        boolean removeSpaces = false;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c != ' ') {
+                sb.append(c);
+                removeSpaces = false;
+            }
+            else if (!removeSpaces) {// first space
+                sb.append(c);
+                removeSpaces = true;
             }
-            return b.toString();
         }
-     }
-     
+        return sb;
+    }
+
+    /**
+     * Returns true if s is not null and has neither leading or trailing
+     * whitespace nor double-spaces, i.e. normalize would not change it.
+     */
+    static boolean isNormalized(CharSequence s) {
+        if (s == null) return false;
+        int len = s.length();
+        if (len == 0) return true;
+        if (s.charAt(0) <= ' ' || s.charAt(len-1) <= ' ') return false;
+        if (s instanceof String) return ((String)s).indexOf("  ") < 0;
+        for (int i = 1; i < len-1; i++) {
+            if (s.charAt(i) == ' ' && s.charAt(i+1) == ' ') return false;
+        }
+        return true;
+    }     
     /**
      * Splits a string into an array of strings using the given separator. A null
      * string will result in a null array, and an empty string in a zero element
@@ -113,21 +171,78 @@ public final class StringUtil {
         if (s.length() == 0) {
             return new String[]{s};
         }
-        ArrayList<String> list = new ArrayList<>();
-        StringBuilder buff = new StringBuilder(s.length());
-        for (int i = 0; i < s.length(); i++) {
-            char c = s.charAt(i);
-            if (c == delimiter) {
-                String e = buff.toString();
-                list.add(trim ? e.trim() : e);
-                buff.setLength(0);
-            } else {
-                buff.append(c);
+        int count = 1;
+        for (int i = s.indexOf(delimiter); i >= 0; i = s.indexOf(delimiter, i+1)) {
+            count++;
+        }
+        String[] array = new String[count];
+        int start = 0;
+        for (int k = 0; k < count; k++) {
+            int end = k == count-1 ? s.length() : s.indexOf(delimiter, start);
+            String e = s.substring(start, end);
+            array[k] = trim ? e.trim() : e;
+            start = end + 1;
+        }
+        return array;
+    }
+
+    /**
+     * Splits a CharSequence into fields using the given separator, without
+     * creating any object : the start offset of field i is written into
+     * offsets[2*i] and its end offset (exclusive) into offsets[2*i+1].
+     * An empty sequence has a single empty field.
+     * If offsets is too small, only the first offsets.length/2 fields are
+     * recorded, but the returned value is still the total number of fields,
+     * so that the caller can grow its buffer and split again.
+     * See {@link FieldSlice} for a reusable view based on this method.
+     *
+     * @param s the sequence to split
+     * @param delimiter the delimiter character
+     * @param trim whether the bounds of each field should be trimmed (as
+     *             with String.trim(), characters up to 0x20 are removed)
+     * @param offsets the buffer receiving start/end offsets of each field
+     * @return the number of fields of s
+     */
+    public static int split(CharSequence s, char delimiter, boolean trim, int[] offsets) {
+        int len = s.length();
+        int max = offsets.length / 2;
+        int count = 0;
+        int start = 0;
+        for (int i = 0; i <= len; i++) {
+            if (i == len || s.charAt(i) == delimiter) {
+                if (count < max) {
+                    int b = start, e = i;
+                    if (trim) {
+                        while (b < e && s.charAt(b) <= ' ') b++;
+                        while (e > b && s.charAt(e-1) <= ' ') e--;
+                    }
+                    offsets[2*count] = b;
+                    offsets[2*count+1] = e;
+                }
+                count++;
+                start = i + 1;
             }
         }
-        String e = buff.toString();
-        list.add(trim ? e.trim() : e);
-        return list.toArray(new String[0]);
+        return count;
+    }
+
+    /**
+     * Splits a CharSequence into an array of strings using the given
+     * separator, as {@link #split(String, char, boolean)} does.
+     *
+     * @param s the sequence to split
+     * @param delimiter the delimiter character
+     * @param trim whether each element should be trimmed
+     * @return the array of fields
+     */
+    public static String[] split(CharSequence s, char delimiter, boolean trim) {
+        if (s == null) {
+            return null;
+        }
+        if (s instanceof String) {
+            return split((String)s, delimiter, trim);
+        }
+        return new FieldSlice().split(s, delimiter, trim).toArray();
     }
     
     /**
@@ -138,14 +253,7 @@ public final class StringUtil {
      * @return the same String with non ASCII characters converted to ASCII.
      */
      public static String cp1252toASCII(String input) {
-        String output = null;
-        try {
-            output = transpose(input, "windows-1252", CP1252_TO_ASCII);
-        }
-        catch(UnsupportedEncodingException uee) {
-            uee.printStackTrace();
-        }
-        return output;
+        return fold(input, CP1252_FOLDING_TABLE);
     }
     
     /**
@@ -157,16 +265,203 @@ public final class StringUtil {
      * @return the same String with non ASCII characters converted to ASCII.
      */
     public static String cp1252toASCII38(String input) {
-        String output = null;
+        return fold(input, CP1252_FOLDING_TABLE38);
+    }
+
+
+    /**
+     * Transpose a string using characters from the Latin, Greek or Cyrillic
+     * blocks of unicode into a pure ASCII String.
+     * Characters of the windows-1252 codepage are transposed as in
+     * {@link #cp1252toASCII(String)}.
+     * Warning : output string length may be different from input String length.
+     *
+     * @param input input String
+     * @return the same String with non ASCII characters converted to ASCII.
+     */
+    public static String unicodeToASCII(String input) {
+        return fold(input, UNICODE_TO_ASCII);
+    }
+
+    /**
+     * Transpose a string using characters from the Latin, Greek or Cyrillic
+     * blocks of unicode into an ASCII String using only upper case letters,
+     * digits whitespace and slash.
+     * Characters of the windows-1252 codepage are transposed as in
+     * {@link #cp1252toASCII38(String)}.
+     * Warning : output string length may be different from input String length.
+     *
+     * @param input input String
+     * @return the same String with non ASCII characters converted to ASCII.
+     */
+    public static String unicodeToASCII38(String input) {
+        return fold(input, UNICODE_TO_ASCII38);
+    }
+
+    /**
+     * Normalizes a whole array of Strings (see {@link #normalize(String)}).
+     * values and result may be the same array to normalize values in place.
+     *
+     * @param values the Strings to normalize
+     * @param result the array receiving normalized Strings, or null to
+     *               create a new one
+     * @param parallel whether the work is split across the common
+     *                 fork/join pool
+     * @return the result array
+     */
+    public static String[] normalize(String[] values, String[] result, boolean parallel) {
+        return batch(Arrays.asList(values), result, null, parallel);
+    }
+
+    /**
+     * Normalizes a list of CharSequences into an array of Strings (see
+     * {@link #normalize(String)}).
+     *
+     * @param values the sequences to normalize
+     * @param result the array receiving normalized Strings, or null to
+     *               create a new one
+     * @param parallel whether the work is split across the common
+     *                 fork/join pool
+     * @return the result array
+     */
+    public static String[] normalize(List<? extends CharSequence> values, String[] result, boolean parallel) {
+        return batch(values, result, null, parallel);
+    }
+
+    /**
+     * Transposes a whole array of Strings with {@link #cp1252toASCII(String)}.
+     * values and result may be the same array to transpose values in place.
+     *
+     * @param values the Strings to transpose
+     * @param result the array receiving transposed Strings, or null to
+     *               create a new one
+     * @param parallel whether the work is split across the common
+     *                 fork/join pool
+     * @return the result array
+     */
+    public static String[] cp1252toASCII(String[] values, String[] result, boolean parallel) {
+        return batch(Arrays.asList(values), result, CP1252_FOLDING_TABLE, parallel);
+    }
+
+    /**
+     * Transposes a list of CharSequences with {@link #cp1252toASCII(String)}.
+     */
+    public static String[] cp1252toASCII(List<? extends CharSequence> values, String[] result, boolean parallel) {
+        return batch(values, result, CP1252_FOLDING_TABLE, parallel);
+    }
+
+    /**
+     * Transposes a whole array of Strings with {@link #cp1252toASCII38(String)}.
+     * values and result may be the same array to transpose values in place.
+     */
+    public static String[] cp1252toASCII38(String[] values, String[] result, boolean parallel) {
+        return batch(Arrays.asList(values), result, CP1252_FOLDING_TABLE38, parallel);
+    }
+
+    /**
+     * Transposes a list of CharSequences with {@link #cp1252toASCII38(String)}.
+     */
+    public static String[] cp1252toASCII38(List<? extends CharSequence> values, String[] result, boolean parallel) {
+        return batch(values, result, CP1252_FOLDING_TABLE38, parallel);
+    }
+
+    /**
+     * Two-level equivalent of CP1252_TO_ASCII, avoiding to encode each
+     * character to transpose it.
+     */
+    private static final String[][] CP1252_FOLDING_TABLE = createCp1252FoldingTable(CP1252_TO_ASCII);
+
+    /**
+     * Two-level equivalent of CP1252_TO_ASCII38.
+     */
+    private static final String[][] CP1252_FOLDING_TABLE38 = createCp1252FoldingTable(CP1252_TO_ASCII38);
+
+    private static String[][] createCp1252FoldingTable(String[] table) {
         try {
-            output = transpose(input, "windows-1252", CP1252_TO_ASCII38);
-        }
-        catch(UnsupportedEncodingException uee) {
+            return createFoldingTable("windows-1252", table);
+        } catch(UnsupportedEncodingException uee) {
             uee.printStackTrace();
+            return null;
         }
-        return output;
     }
 
+    /** Number of values processed by a single fork/join task. */
+    private static final int BATCH_SIZE = 4096;
+
+    private static String[] batch(List<? extends CharSequence> values, String[] result,
+                                  String[][] table, boolean parallel) {
+        int size = values.size();
+        if (result == null) result = new String[size];
+        else if (result.length < size) {
+            throw new IllegalArgumentException("Result array is too small : " +
+                    result.length + " < " + size);
+        }
+        if (parallel && size > BATCH_SIZE) {
+            ForkJoinPool.commonPool().invoke(new BatchTask(values, result, table, 0, size));
+        } else {
+            batch(values, result, table, 0, size);
+        }
+        return result;
+    }
+
+    // Process values from index from (inclusive) to index to (exclusive)
+    // with a single scratch buffer
+    private static void batch(List<? extends CharSequence> values, String[] result,
+                              String[][] table, int from, int to) {
+        StringBuilder scratch = new StringBuilder(64);
+        for (int i = from; i < to; i++) {
+            CharSequence s = values.get(i);
+            if (table == null) {
+                if (s == null) result[i] = "";
+                else if (isNormalized(s)) result[i] = s.toString();
+                else {
+                    scratch.setLength(0);
+                    result[i] = normalize(s, scratch).toString();
+                }
+            }
+            else if (s == null) result[i] = null;
+            else {
+                scratch.setLength(0);
+                fold(s, table, scratch);
+                // keep the input instance if the transposition changed nothing
+                result[i] = s instanceof String && ((String)s).contentEquals(scratch) ?
+                        (String)s : scratch.toString();
+            }
+        }
+    }
+
+    /**
+     * Fork/join task processing a range of values, each leaf task using its
+     * own scratch buffer.
+     */
+    private static final class BatchTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<? extends CharSequence> values;
+        private final String[] result;
+        private final String[][] table;
+        private final int from, to;
+
+        BatchTask(List<? extends CharSequence> values, String[] result,
+                  String[][] table, int from, int to) {
+            this.values = values;
+            this.result = result;
+            this.table = table;
+            this.from = from;
+            this.to = to;
+        }
+
+        protected void compute() {
+            if (to - from <= BATCH_SIZE) {
+                batch(values, result, table, from, to);
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new BatchTask(values, result, table, from, mid),
+                          new BatchTask(values, result, table, mid, to));
+            }
+        }
+    }
 
    /**
     * Comparator to compare length of strings and order them from longest to shortest.
@@ -187,25 +482,56 @@ public final class StringUtil {
     }
 
    /**
-    * Remove the part of the string within parenthesis.
-    * If the string contains several nested or successive parenthesis, only
-    * the first interior parenthesis is removed.
-    * The method can be applied several times to remove several successive or
-    * nested parenthesis.
+    * Remove the parts of the string within parenthesis.
+    * Nested and successive parenthesis are all removed in a single pass.
     * If parenthesis are not well balanced, result is undefined.
     */
     public static String removeParenthesis(String in) {
-        int d = in.lastIndexOf('('); // last opening parenthesis
-        int f = in.indexOf(')', d);  // first closing parenthesis after the last opening one 
-        StringBuilder sb = new StringBuilder();
-        if (d >= 0 && f > d) {
-            sb.append(in.substring(0, d)).append(in.substring(f+1));
-            if (sb.indexOf("(") >= 0) return removeParenthesis(sb.toString());
-            return sb.toString();
+        if (in.indexOf('(') < 0) return in;
+        return removeParenthesis(in, new StringBuilder(in.length())).toString();
+    }
+
+   /**
+    * Same as {@link #removeParenthesis(String)} for a CharSequence, but
+    * returns the input instance itself if it does not contain any parenthesis
+    * to remove.
+    */
+    public static CharSequence removeParenthesis(CharSequence in) {
+        for (int i = 0, len = in.length(); i < len; i++) {
+            if (in.charAt(i) == '(') {
+                return removeParenthesis(in, new StringBuilder(len)).toString();
+            }
         }
-        else return in;
+        return in;
     }
-    
+
+   /**
+    * Appends in to sb, except the parts within parenthesis.
+    * @param in the sequence to process
+    * @param sb the StringBuilder to append to
+    * @return sb
+    */
+    public static StringBuilder removeParenthesis(CharSequence in, StringBuilder sb) {
+        int offset = sb.length();
+        int depth = 0; // number of opening parenthesis not closed yet
+        for (int i = 0, len = in.length(); i < len; i++) {
+            char c = in.charAt(i);
+            if (c == ')' && depth > 0) {
+                // the last opening parenthesis of sb is the innermost one,
+                // as closed ones have already been removed
+                int d = sb.length() - 1;
+                while (d >= offset && sb.charAt(d) != '(') d--;
+                sb.setLength(d);
+                depth--;
+            }
+            else {
+                if (c == '(') depth++;
+                sb.append(c);
+            }
+        }
+        return sb;
+    }
+
     /**
      * Build a random String from a String containing all the authorized characters.
      * To increase/decrease characters frequency, just duplicate them
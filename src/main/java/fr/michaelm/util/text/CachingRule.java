@@ -0,0 +1,185 @@
+/*
+ * (C) 2026 michael.michaud@free.fr
+ */
+
+package fr.michaelm.util.text;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A Rule decorator keeping the results of another Rule in a bounded cache,
+ * so that transforming again a String already seen costs a hash lookup.
+ * <p>The cache is split into segments, each one being a LinkedHashMap in
+ * access order evicting its least recently used entry, and protected by its
+ * own lock, so that the rule can be used concurrently by many threads.
+ * The decorated rule is applied outside of any lock.</p>
+ * <p>Only transformations without context are cached, as the result of a
+ * transformation may depend on its context. Exceptions are not cached.</p>
+ *
+ * @author Micha&euml;l Michaud
+ * @version 0.1 (2026-10-19)
+ */
+public class CachingRule extends AbstractRule {
+
+    private static final int SEGMENTS = 16;
+
+    private final Rule rule;
+
+    private final int maxSize;
+
+    private final Segment[] segments;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates a CachingRule keeping at most maxSize results of rule.
+     *
+     * @param rule the rule to decorate
+     * @param maxSize the maximum number of cached results
+     */
+    public CachingRule(Rule rule, int maxSize) {
+        if (rule == null) throw new NullPointerException("rule must not be null");
+        if (maxSize < 1) throw new IllegalArgumentException("maxSize must be positive : " + maxSize);
+        this.rule = rule;
+        this.maxSize = maxSize;
+        // segment sizes add up to maxSize, the first ones keeping the remainder
+        int segmentCount = Math.min(SEGMENTS, Integer.highestOneBit(maxSize));
+        int segmentSize = maxSize / segmentCount;
+        int remainder = maxSize % segmentCount;
+        this.segments = new Segment[segmentCount];
+        for (int i = 0 ; i < segmentCount ; i++) {
+            segments[i] = new Segment(i < remainder ? segmentSize + 1 : segmentSize);
+        }
+    }
+
+    /**
+     * Transforms a String into another String, using the cached result if s
+     * has already been transformed.
+     * @param s the String to transform
+     * @param context a context object or null if no context information is available
+     * @return the transformed String
+     */
+    public String transform(String s, Object context) throws TransformationException {
+        if (s == null || context != null) return rule.transform(s, context);
+        Segment segment = segmentFor(s);
+        String result;
+        synchronized (segment) {
+            result = segment.get(s);
+        }
+        if (result != null) {
+            hits.increment();
+            return result;
+        }
+        misses.increment();
+        result = rule.transform(s, null);
+        if (result != null) {
+            synchronized (segment) {
+                segment.put(s, result);
+            }
+        }
+        return result;
+    }
+
+    private Segment segmentFor(String s) {
+        int h = s.hashCode();
+        h ^= h >>> 16;
+        return segments[h & (segments.length - 1)];
+    }
+
+    /**
+     * Returns the decorated rule.
+     */
+    public Rule getRule() {
+        return rule;
+    }
+
+    /**
+     * Returns the maximum number of cached results.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns the number of cached results.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the number of transformations answered from the cache.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of transformations delegated to the decorated rule
+     * (transformations with a context are not counted).
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the ratio of transformations answered from the cache, or 0 if
+     * no transformation has been done.
+     */
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : (double)h / total;
+    }
+
+    /**
+     * Removes all cached results and resets statistics.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+        hits.reset();
+        misses.reset();
+    }
+
+    /**
+     * String representation of this CachingRule.
+     */
+    public String toString() {
+        return "Cache (" + size() + "/" + maxSize + ", hits=" + getHitCount() +
+               ", misses=" + getMissCount() + ") of " + rule;
+    }
+
+    /**
+     * A LinkedHashMap in access order evicting its least recently used entry.
+     */
+    private static final class Segment extends LinkedHashMap<String,String> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int maxSize;
+
+        private Segment(int maxSize) {
+            super(Math.min(maxSize, 1024) * 4 / 3 + 1, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        protected boolean removeEldestEntry(Map.Entry<String,String> eldest) {
+            return size() > maxSize;
+        }
+    }
+
+}
@@ -0,0 +1,234 @@
+/*
+ * (C) 2026 michael.michaud@free.fr
+ */
+
+package fr.michaelm.util.text;
+
+import fr.michaelm.util.DSVUtil;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+/**
+ * Tags the toponyms of a column of a
+ * <a href="http://en.wikipedia.org/wiki/Delimiter-separated_values">Delimiter
+ * Separated Values</a> file with their language, appended as a new column.
+ * <p>The file is read by chunks of lines. The toponyms of a chunk are
+ * classified in the common fork/join pool while the next chunk is read and
+ * the previous one is written, so that the lines of the output file are in
+ * the same order as in the input file. The default classifier,
+ * {@link Language#guessLanguage(String)}, keeps its matchers per thread.</p>
+ *
+ * @author Micha&euml;l Michaud
+ * @version 0.1 (2026-10-19)
+ */
+public final class DSVLanguageTagger {
+
+    /** Number of toponyms classified by a single fork/join task. */
+    private static final int BATCH_SIZE = 1024;
+
+    private int field = 0;
+    private char delimiter = 0;
+    private int chunkSize = 65536;
+    private boolean header = true;
+    private String columnName = "LANGUAGE";
+    private Charset charset = StandardCharsets.UTF_8;
+    private Function<? super String,Language> classifier = Language::guessLanguage;
+    private final String fileName;
+
+    /** Creates a new DSVLanguageTagger for file fileName.*/
+    public DSVLanguageTagger(String fileName) {
+        this.fileName = fileName;
+    }
+
+    /** Set the zero-based column number of the toponyms (default is 0).*/
+    public DSVLanguageTagger setField(int field) {
+        this.field = field;
+        return this;
+    }
+
+    /**
+     * Set the delimiter of this Delimiter Separated Values file (default is
+     * the delimiter guessed by {@link DSVUtil#guessCharDelimiter(String)}).
+     */
+    public DSVLanguageTagger setDelimiter(char delimiter) {
+        this.delimiter = delimiter;
+        return this;
+    }
+
+    /** Set the number of lines read at once (default is 65536).*/
+    public DSVLanguageTagger setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /** Set wether the file has a header line or not (default is true).*/
+    public DSVLanguageTagger setHeader(boolean header) {
+        this.header = header;
+        return this;
+    }
+
+    /** Set the name of the language column in the header (default is LANGUAGE).*/
+    public DSVLanguageTagger setColumnName(String columnName) {
+        this.columnName = columnName;
+        return this;
+    }
+
+    /** Set the charset of the input and output files (default is UTF-8).*/
+    public DSVLanguageTagger setCharset(Charset charset) {
+        this.charset = charset;
+        return this;
+    }
+
+    /**
+     * Set the function giving the language of a toponym (default is
+     * {@link Language#guessLanguage(String)}). It is called concurrently
+     * and must be thread-safe, as {@link LanguageModel#guess(CharSequence)}.
+     */
+    public DSVLanguageTagger setClassifier(Function<? super String,Language> classifier) {
+        this.classifier = classifier;
+        return this;
+    }
+
+    /**
+     * Tags the file and returns the name of the tagged file (the name of the
+     * file followed by _language). Blank lines are copied as is, and lines
+     * without the toponym column get an empty language.
+     */
+    public String tag() throws IOException {
+        int dotIndex = fileName.lastIndexOf('.');
+        String fileNameWithoutExtension = dotIndex>0?fileName.substring(0, dotIndex):fileName;
+        String dotExtension             = dotIndex>0?fileName.substring(dotIndex):"";
+        String output = fileNameWithoutExtension + "_language" + dotExtension;
+        char delim = delimiter != 0 ? delimiter : DSVUtil.guessCharDelimiter(fileName);
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(fileName), charset));
+             BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(output), charset))) {
+            if (header) {
+                String line = br.readLine();
+                if (line != null) {
+                    bw.write(line);
+                    bw.write(delim);
+                    bw.write(columnName);
+                    bw.newLine();
+                }
+            }
+            Chunk pending = null;
+            ForkJoinTask<?> task = null;
+            while (true) {
+                Chunk chunk = read(br);
+                // the next chunk is classified while the previous one is written
+                ForkJoinTask<?> next = chunk == null ? null :
+                    ForkJoinPool.commonPool().submit(new TagTask(chunk, 0, chunk.size, delim));
+                if (task != null) {
+                    task.join();
+                    write(bw, pending, delim);
+                }
+                if (chunk == null) break;
+                pending = chunk;
+                task = next;
+            }
+        }
+        return output;
+    }
+
+    // Reads the next chunkSize lines, or returns null at the end of the file
+    private Chunk read(BufferedReader br) throws IOException {
+        Chunk chunk = new Chunk(chunkSize);
+        String line;
+        while (chunk.size < chunkSize && null != (line = br.readLine())) {
+            chunk.lines[chunk.size++] = line;
+        }
+        return chunk.size == 0 ? null : chunk;
+    }
+
+    private void write(BufferedWriter bw, Chunk chunk, char delim) throws IOException {
+        for (int i = 0 ; i < chunk.size ; i++) {
+            bw.write(chunk.lines[i]);
+            if (chunk.languages[i] != null) {
+                bw.write(delim);
+                bw.write(chunk.languages[i]);
+            }
+            bw.newLine();
+        }
+    }
+
+    // Returns the field at index field of line, or null
+    private static String field(String line, char delim, int field) {
+        int start = 0;
+        for (int i = 0 ; i < field ; i++) {
+            start = line.indexOf(delim, start) + 1;
+            if (start == 0) return null;
+        }
+        int end = line.indexOf(delim, start);
+        return line.substring(start, end < 0 ? line.length() : end);
+    }
+
+    /**
+     * Lines read at once, and their language.
+     */
+    private static final class Chunk {
+        final String[] lines;
+        final String[] languages;
+        int size;
+        Chunk(int capacity) {
+            lines = new String[capacity];
+            languages = new String[capacity];
+        }
+    }
+
+    private final class TagTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Chunk chunk;
+        private final int from, to;
+        private final char delim;
+
+        TagTask(Chunk chunk, int from, int to, char delim) {
+            this.chunk = chunk;
+            this.from = from;
+            this.to = to;
+            this.delim = delim;
+        }
+
+        protected void compute() {
+            if (to - from <= BATCH_SIZE) {
+                for (int i = from ; i < to ; i++) {
+                    String line = chunk.lines[i];
+                    if (line.trim().length() == 0) continue;
+                    String toponym = field(line, delim, field);
+                    chunk.languages[i] = toponym == null ? "" : classifier.apply(toponym).getName();
+                }
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new TagTask(chunk, from, mid, delim),
+                          new TagTask(chunk, mid, to, delim));
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 2) {
+            DSVLanguageTagger tagger = new DSVLanguageTagger(args[0]).setField(Integer.parseInt(args[1]));
+            System.out.println(tagger.tag());
+        }
+        else {
+            System.out.println("Usage is :");
+            System.out.println("java -cp . fr.michaelm.util.text.DSVLanguageTagger filename column");
+            System.out.println("    - filename must be a valid path");
+            System.out.println("    - column is the 0-based column of the toponyms");
+        }
+    }
+
+}
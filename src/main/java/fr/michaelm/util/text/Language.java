@@ -5,8 +5,9 @@
 package fr.michaelm.util.text;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 /**
@@ -17,8 +18,14 @@ import java.util.regex.Pattern;
  */
 // History
 // 0.1 (2011-05-01)
+// 0.2 (2026-10-19) guessLanguage searches all the patterns in a single pass
+// 0.3 (2026-10-19) add forName
+// 0.4 (2026-10-19) level and ancestors are computed once, add includes
 public class Language {
 
+    // languages by name (the first one created with a given name)
+    private static final Map<String,Language> LANGUAGES = new ConcurrentHashMap<>();
+
     public final static Language UNKNOWN             = new Language("Unknown");
 
     // Familles
@@ -83,52 +90,62 @@ public class Language {
     public final static int DIALECT  = 5; // ex.
 
     private final String name;
-    private final int level = 0;
-    private Language parent = null;
+    private final int level;
+    private final Language parent;
+    // ancestors[i] is the ancestor of level i+1 (ancestors[level-1] == this)
+    private final Language[] ancestors;
 
     public Language(String name) {
-        this.name = name;
+        this(name, null);
     }
 
     public Language(String name, Language parent) {
         this.name = name;
         this.parent = parent;
+        this.level = parent == null ? 1 : parent.level + 1;
+        this.ancestors = new Language[level];
+        if (parent != null) System.arraycopy(parent.ancestors, 0, ancestors, 0, parent.level);
+        ancestors[level - 1] = this;
+        LANGUAGES.putIfAbsent(name, this);
+    }
+
+    /**
+     * Returns the language named name (as returned by {@link #getName()}),
+     * or null if there is no such language.
+     */
+    public static Language forName(String name) {
+        return LANGUAGES.get(name);
     }
 
     public String getName() {
         return name;
     }
 
-    private Language getParent() {
-        return parent;
+    public int getLevel() {
+        return level;
     }
 
-    public int getLevel() {
-        int lev = 1;
-        Language lang = this;
-        while (null != (lang = lang.getParent())) lev++;
-        return lev;
+    /**
+     * Returns true if language is this language or one of its
+     * sub-languages.
+     */
+    public boolean includes(Language language) {
+        return language.level >= level && language.ancestors[level - 1] == this;
     }
 
+    /**
+     * Returns true if l1 and l2 are the same language or if one of them is
+     * a sub-language of the other.
+     */
     public static boolean areComparable(Language l1, Language l2) {
-        if (l1 == l2) return true;
-        // case l1 level > l2 level : reverse the code
-        if (l1.getLevel() > l2.getLevel()) return areComparable(l2, l1);
-            // case l1 level = l2 level : two different language of same level
-        else if (l1.getLevel() == l2.getLevel()) return false;
-        else return areComparable(l1, l2.getParent());
+        return l1.level <= l2.level ? l1.includes(l2) : l2.includes(l1);
     }
 
     public String toString() {
-        List<String> list = new ArrayList<>();
-        list.add(name);
-        Language lang = this;
-        while (null != (lang = lang.getParent())) list.add(lang.getName());
-        Collections.reverse(list);
         StringBuilder sb = new StringBuilder();
-        for (int i = 0 ; i < list.size() ; i++) {
+        for (int i = 0 ; i < level ; i++) {
             if (i>0) sb.append("/");
-            sb.append(list.get(i));
+            sb.append(ancestors[i].getName());
         }
         return sb.toString();
     }
@@ -243,79 +260,66 @@ public class Language {
     private static final Pattern BASQUE_5  = Pattern.compile("tz[aeiouéü]k", Pattern.CASE_INSENSITIVE); // env. 65
 
 
+    // Patterns used by guessLanguage, in the order they are tried, and the
+    // language guessed when they are found
+    private static final List<Pattern> GUESS_PATTERNS = new ArrayList<>();
+    private static final List<Language> GUESS_LANGUAGES = new ArrayList<>();
+
+    static {
+        guess(GERMANIQUE, GERMANIQUE_1, GERMANIQUE_2, GERMANIQUE_3, GERMANIQUE_4, GERMANIQUE_5,
+              GERMANIQUE_6, GERMANIQUE_7, GERMANIQUE_8, GERMANIQUE_9, GERMANIQUE_10, GERMANIQUE_11);
+        guess(MOYEN_FRANCIQUE, M_FRANCIQUE_1, M_FRANCIQUE_2, M_FRANCIQUE_3);
+        guess(OCCITAN, OCCITAN_1, OCCITAN_2, OCCITAN_3, OCCITAN_4, OCCITAN_5);
+        guess(CORSE, CORSE_1, CORSE_2, CORSE_3, CORSE_4, CORSE_5, CORSE_6, CORSE_7, CORSE_8, CORSE_9);
+        guess(ROMAN, ROMAN_1);
+        guess(LANGUEDOCIEN, LANGUEDOCIEN_1);
+        guess(FRANCO_PROVENCAL, FRANCO_PROVENCAL_1);
+        guess(BRETON, BRETON_1, BRETON_2, BRETON_3, BRETON_4, BRETON_5, BRETON_6, BRETON_7, BRETON_8,
+              BRETON_9, BRETON_10, BRETON_11, BRETON_12);
+        guess(CATALAN, CATALAN_1, CATALAN_2, CATALAN_3, CATALAN_4);
+        guess(FRANCAIS, FRANCAIS_1, FRANCAIS_2, FRANCAIS_3, FRANCAIS_4, FRANCAIS_5, FRANCAIS_6,
+              FRANCAIS_7, FRANCAIS_8);
+        guess(BASQUE, BASQUE_1, BASQUE_2, BASQUE_3, BASQUE_4, BASQUE_5);
+    }
+
+    private static void guess(Language language, Pattern... patterns) {
+        for (Pattern pattern : patterns) {
+            GUESS_PATTERNS.add(pattern);
+            GUESS_LANGUAGES.add(language);
+        }
+    }
+
+    private static final Language[] GUESSES = GUESS_LANGUAGES.toArray(new Language[0]);
+
+    private static final MatcherPool MATCHERS = new MatcherPool(GUESS_PATTERNS);
+
+    // All the patterns compiled into a single program, searched in a single
+    // pass (null if one of the patterns is not supported by LinearPattern)
+    private static final LinearPattern GUESS_PROGRAM = LinearPattern.compile(GUESS_PATTERNS);
+
+    /**
+     * Guesses the language of a toponym from the first indicator pattern
+     * found in s (patterns are tried in a fixed priority order).
+     */
     public static Language guessLanguage(String s) {
+        if (GUESS_PROGRAM != null && GUESS_PROGRAM.accepts(s)) {
+            int i = GUESS_PROGRAM.firstMatch(s);
+            return i < 0 ? UNKNOWN : GUESSES[i];
+        }
+        return guessLanguageSequentially(s);
+    }
 
-        if (GERMANIQUE_1.matcher(s).find()) return GERMANIQUE;
-        if (GERMANIQUE_2.matcher(s).find()) return GERMANIQUE;
-        if (GERMANIQUE_3.matcher(s).find()) return GERMANIQUE;
-        if (GERMANIQUE_4.matcher(s).find()) return GERMANIQUE;
-        if (GERMANIQUE_5.matcher(s).find()) return GERMANIQUE;
-        if (GERMANIQUE_6.matcher(s).find()) return GERMANIQUE;
-        if (GERMANIQUE_7.matcher(s).find()) return GERMANIQUE;
-        if (GERMANIQUE_8.matcher(s).find()) return GERMANIQUE;
-        if (GERMANIQUE_9.matcher(s).find()) return GERMANIQUE;
-        if (GERMANIQUE_10.matcher(s).find()) return GERMANIQUE;
-        if (GERMANIQUE_11.matcher(s).find()) return GERMANIQUE;
-
-        if (M_FRANCIQUE_1.matcher(s).find()) return MOYEN_FRANCIQUE;
-        if (M_FRANCIQUE_2.matcher(s).find()) return MOYEN_FRANCIQUE;
-        if (M_FRANCIQUE_3.matcher(s).find()) return MOYEN_FRANCIQUE;
-
-        if (OCCITAN_1.matcher(s).find()) return OCCITAN;
-        if (OCCITAN_2.matcher(s).find()) return OCCITAN;
-        if (OCCITAN_3.matcher(s).find()) return OCCITAN;
-        if (OCCITAN_4.matcher(s).find()) return OCCITAN;
-        if (OCCITAN_5.matcher(s).find()) return OCCITAN;
-
-        if (CORSE_1.matcher(s).find()) return CORSE;
-        if (CORSE_2.matcher(s).find()) return CORSE;
-        if (CORSE_3.matcher(s).find()) return CORSE;
-        if (CORSE_4.matcher(s).find()) return CORSE;
-        if (CORSE_5.matcher(s).find()) return CORSE;
-        if (CORSE_6.matcher(s).find()) return CORSE;
-        if (CORSE_7.matcher(s).find()) return CORSE;
-        if (CORSE_8.matcher(s).find()) return CORSE;
-        if (CORSE_9.matcher(s).find()) return CORSE;
-
-        if (ROMAN_1.matcher(s).find()) return ROMAN;
-        if (LANGUEDOCIEN_1.matcher(s).find()) return LANGUEDOCIEN;
-        if (FRANCO_PROVENCAL_1.matcher(s).find()) return FRANCO_PROVENCAL;
-
-        if (BRETON_1.matcher(s).find()) return BRETON;
-        if (BRETON_2.matcher(s).find()) return BRETON;
-        if (BRETON_3.matcher(s).find()) return BRETON;
-        if (BRETON_4.matcher(s).find()) return BRETON;
-        if (BRETON_5.matcher(s).find()) return BRETON;
-        if (BRETON_6.matcher(s).find()) return BRETON;
-        if (BRETON_7.matcher(s).find()) return BRETON;
-        if (BRETON_8.matcher(s).find()) return BRETON;
-        if (BRETON_9.matcher(s).find()) return BRETON;
-        if (BRETON_10.matcher(s).find()) return BRETON;
-        if (BRETON_11.matcher(s).find()) return BRETON;
-        if (BRETON_12.matcher(s).find()) return BRETON;
-
-        if (CATALAN_1.matcher(s).find()) return CATALAN;
-        if (CATALAN_2.matcher(s).find()) return CATALAN;
-        if (CATALAN_3.matcher(s).find()) return CATALAN;
-        if (CATALAN_4.matcher(s).find()) return CATALAN;
-
-        if (FRANCAIS_1.matcher(s).find()) return FRANCAIS;
-        if (FRANCAIS_2.matcher(s).find()) return FRANCAIS;
-        if (FRANCAIS_3.matcher(s).find()) return FRANCAIS;
-        if (FRANCAIS_4.matcher(s).find()) return FRANCAIS;
-        if (FRANCAIS_5.matcher(s).find()) return FRANCAIS;
-        if (FRANCAIS_6.matcher(s).find()) return FRANCAIS;
-        if (FRANCAIS_7.matcher(s).find()) return FRANCAIS;
-        if (FRANCAIS_8.matcher(s).find()) return FRANCAIS;
-
-        if (BASQUE_1.matcher(s).find()) return BASQUE;
-        if (BASQUE_2.matcher(s).find()) return BASQUE;
-        if (BASQUE_3.matcher(s).find()) return BASQUE;
-        if (BASQUE_4.matcher(s).find()) return BASQUE;
-        if (BASQUE_5.matcher(s).find()) return BASQUE;
-
-        else return UNKNOWN;
+    // Tries the patterns one after the other with java.util.regex
+    static Language guessLanguageSequentially(String s) {
+        for (int i = 0, n = GUESSES.length ; i < n ; i++) {
+            if (MATCHERS.matcher(i, s).find()) return GUESSES[i];
+        }
+        return UNKNOWN;
+    }
 
+    // Returns true if guessLanguage searches all the patterns in a single pass
+    static boolean isSinglePass() {
+        return GUESS_PROGRAM != null;
     }
 
-}
\ No newline at end of file
+}
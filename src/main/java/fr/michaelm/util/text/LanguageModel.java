@@ -0,0 +1,424 @@
+/*
+ * (C) 2026 michael.michaud@free.fr
+ */
+
+package fr.michaelm.util.text;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A character n-gram classifier guessing the {@link Language} of a toponym,
+ * with a probability for each language.
+ * <p>The model is a naive Bayes classifier : the n-grams (1 to order
+ * characters) of the lower-cased name, delimited by spaces, are hashed into
+ * a fixed number of buckets, and the model holds, for each bucket and each
+ * language, the logarithm of the probability of the bucket in names of this
+ * language, quantized as a short. A name is scored in a single pass, without
+ * allocation.</p>
+ * <p>Unlike {@link Language#guessLanguage(String)}, which returns the
+ * language of the first indicator pattern found, the model returns a
+ * distribution, which can be ranked, and summed over the sub-languages of a
+ * language with {@link #getProbability(Language, float[])}.</p>
+ * <p>Models are trained with a {@link Trainer}, for example from a file of
+ * labelled toponyms with
+ * <code>java fr.michaelm.util.text.LanguageModel labelled_file model_file</code>,
+ * and loaded with {@link #read(InputStream)}.</p>
+ *
+ * @author Micha&euml;l Michaud
+ * @version 0.1 (2026-10-19)
+ */
+public final class LanguageModel {
+
+    private static final int MAGIC   = 0x4C4E474D; // LNGM
+    private static final int VERSION = 1;
+
+    // maximum length of the n-grams (4 chars are packed in a long)
+    private static final int MAX_ORDER = 4;
+
+    private final Language[] languages;
+
+    // n-grams of 1 to order characters are used
+    private final int order;
+
+    // the number of buckets is 1 << bits
+    private final int bits;
+
+    // logarithms of the prior probabilities of the languages
+    private final float[] priors;
+
+    // quantized logarithms of the probability of each bucket for each
+    // language, at index bucket * languages.length + language
+    private final short[] table;
+
+    // value of a quantization step
+    private final float scale;
+
+    private final ThreadLocal<float[]> scores;
+
+    private LanguageModel(Language[] languages, int order, int bits,
+                          float[] priors, short[] table, float scale) {
+        this.languages = languages;
+        this.order = order;
+        this.bits = bits;
+        this.priors = priors;
+        this.table = table;
+        this.scale = scale;
+        final int size = languages.length;
+        this.scores = ThreadLocal.withInitial(() -> new float[size]);
+    }
+
+    /**
+     * Returns the languages of this model, in the order of the
+     * distributions it computes.
+     */
+    public Language[] getLanguages() {
+        return languages.clone();
+    }
+
+    /**
+     * Returns the number of languages of this model.
+     */
+    public int size() {
+        return languages.length;
+    }
+
+    /**
+     * Returns the language at index i of the distributions.
+     */
+    public Language getLanguage(int i) {
+        return languages[i];
+    }
+
+    /**
+     * Computes the log-likelihood of s for each language of the model.
+     * @param s the toponym
+     * @param scores an array of size {@link #size()} receiving the scores
+     */
+    public void score(CharSequence s, float[] scores) {
+        final int size = languages.length;
+        // sum of the quantized values (exact in a float), scaled at the end
+        for (int l = 0 ; l < size ; l++) scores[l] = 0;
+        long window = ' ';
+        int count = 1;
+        boolean space = true;
+        for (int i = 0, n = s.length() ; i <= n ; i++) {
+            char c = i < n ? normalize(s.charAt(i)) : ' ';
+            if (c == ' ') {
+                if (space) continue;
+                space = true;
+            }
+            else space = false;
+            window = (window << 16) | c;
+            if (count < order) count++;
+            for (int k = 1 ; k <= count ; k++) {
+                int offset = bucket(window, k) * size;
+                for (int l = 0 ; l < size ; l++) scores[l] += table[offset + l];
+            }
+        }
+        for (int l = 0 ; l < size ; l++) scores[l] = priors[l] + scores[l] * scale;
+    }
+
+    /**
+     * Computes the probability of each language of the model for s.
+     * @param s the toponym
+     * @param probabilities an array of size {@link #size()} receiving the
+     *                      probabilities
+     */
+    public void distribution(CharSequence s, float[] probabilities) {
+        score(s, probabilities);
+        float max = Float.NEGATIVE_INFINITY;
+        for (float score : probabilities) max = Math.max(max, score);
+        float sum = 0;
+        for (int l = 0 ; l < probabilities.length ; l++) {
+            probabilities[l] = (float)Math.exp(probabilities[l] - max);
+            sum += probabilities[l];
+        }
+        for (int l = 0 ; l < probabilities.length ; l++) probabilities[l] /= sum;
+    }
+
+    /**
+     * Returns the most probable language of s.
+     */
+    public Language guess(CharSequence s) {
+        float[] scores = this.scores.get();
+        score(s, scores);
+        int best = 0;
+        for (int l = 1 ; l < scores.length ; l++) {
+            if (scores[l] > scores[best]) best = l;
+        }
+        return languages[best];
+    }
+
+    /**
+     * Sorts the indices of the languages by decreasing probability.
+     * @param probabilities a distribution computed by
+     *                      {@link #distribution(CharSequence, float[])}
+     * @param ranking an array of size {@link #size()} receiving the indices
+     *                of the languages, the most probable first
+     */
+    public static void rank(float[] probabilities, int[] ranking) {
+        for (int i = 0 ; i < ranking.length ; i++) {
+            int l = i;
+            int j = i;
+            // insertion sort (a few languages)
+            while (j > 0 && probabilities[ranking[j - 1]] < probabilities[l]) {
+                ranking[j] = ranking[j - 1];
+                j--;
+            }
+            ranking[j] = l;
+        }
+    }
+
+    /**
+     * Returns the probability of language in a distribution computed by
+     * {@link #distribution(CharSequence, float[])}, including the
+     * probabilities of its sub-languages.
+     */
+    public float getProbability(Language language, float[] probabilities) {
+        float probability = 0;
+        for (int l = 0 ; l < languages.length ; l++) {
+            if (language.includes(languages[l])) {
+                probability += probabilities[l];
+            }
+        }
+        return probability;
+    }
+
+    // Lower-cased letters, other characters are separators
+    private static char normalize(char c) {
+        return Character.isLetter(c) ? Character.toLowerCase(c) : ' ';
+    }
+
+    // Returns the bucket of the n-gram made of the k last chars of window
+    private int bucket(long window, int k) {
+        long gram = k == MAX_ORDER ? window : window & ((1L << (16 * k)) - 1);
+        long h = (gram + k) * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 29;
+        h *= 0xBF58476D1CE4E5B9L;
+        return (int)(h >>> (64 - bits));
+    }
+
+    /**
+     * Writes this model.
+     */
+    public void write(OutputStream os) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeByte(order);
+        out.writeByte(bits);
+        out.writeInt(languages.length);
+        for (int l = 0 ; l < languages.length ; l++) {
+            out.writeUTF(languages[l].getName());
+            out.writeFloat(priors[l]);
+        }
+        out.writeFloat(scale);
+        for (short value : table) out.writeShort(value);
+        out.flush();
+    }
+
+    /**
+     * Writes this model in a file.
+     */
+    public void write(File file) throws IOException {
+        try (OutputStream os = new FileOutputStream(file)) {
+            write(os);
+        }
+    }
+
+    /**
+     * Reads a model written by {@link #write(OutputStream)}.
+     * @throws IOException if the stream does not contain a model, or if a
+     * language of the model is unknown (see {@link Language#forName(String)})
+     */
+    public static LanguageModel read(InputStream is) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(is));
+        if (in.readInt() != MAGIC) throw new IOException("Not a language model");
+        int version = in.readInt();
+        if (version != VERSION) throw new IOException("Unsupported language model version " + version);
+        int order = in.readByte();
+        int bits = in.readByte();
+        int size = in.readInt();
+        Language[] languages = new Language[size];
+        float[] priors = new float[size];
+        for (int l = 0 ; l < size ; l++) {
+            String name = in.readUTF();
+            languages[l] = Language.forName(name);
+            if (languages[l] == null) throw new IOException("Unknown language " + name);
+            priors[l] = in.readFloat();
+        }
+        float scale = in.readFloat();
+        short[] table = new short[size << bits];
+        for (int i = 0 ; i < table.length ; i++) table[i] = in.readShort();
+        return new LanguageModel(languages, order, bits, priors, table, scale);
+    }
+
+    /**
+     * Reads a model from a file.
+     */
+    public static LanguageModel read(File file) throws IOException {
+        try (InputStream is = new FileInputStream(file)) {
+            return read(is);
+        }
+    }
+
+    /**
+     * Counts the n-grams of labelled toponyms and builds a LanguageModel.
+     */
+    public static final class Trainer {
+
+        private final int order;
+        private final int bits;
+        private final List<Language> languages = new ArrayList<>();
+        private final List<int[]> counts = new ArrayList<>();
+        private final List<long[]> totals = new ArrayList<>();
+        // hashes the n-grams with the same function as the model
+        private final LanguageModel hasher;
+
+        /**
+         * Creates a Trainer for a model using n-grams of 1 to 4 characters
+         * and 2^14 buckets.
+         */
+        public Trainer() {
+            this(4, 14);
+        }
+
+        /**
+         * Creates a Trainer.
+         * @param order the maximum length of the n-grams (1 to 4)
+         * @param bits the logarithm of the number of buckets (1 to 24)
+         */
+        public Trainer(int order, int bits) {
+            if (order < 1 || order > MAX_ORDER) throw new IllegalArgumentException("order must be in [1," + MAX_ORDER + "]");
+            if (bits < 1 || bits > 24) throw new IllegalArgumentException("bits must be in [1,24]");
+            this.order = order;
+            this.bits = bits;
+            this.hasher = new LanguageModel(new Language[0], order, bits, null, null, 0);
+        }
+
+        /**
+         * Adds a toponym of language to the training set.
+         */
+        public void add(CharSequence s, Language language) {
+            int l = languages.indexOf(language);
+            if (l < 0) {
+                l = languages.size();
+                languages.add(language);
+                counts.add(new int[1 << bits]);
+                // number of names, number of n-grams
+                totals.add(new long[2]);
+            }
+            int[] count = counts.get(l);
+            long[] total = totals.get(l);
+            total[0]++;
+            long window = ' ';
+            int length = 1;
+            boolean space = true;
+            for (int i = 0, n = s.length() ; i <= n ; i++) {
+                char c = i < n ? normalize(s.charAt(i)) : ' ';
+                if (c == ' ') {
+                    if (space) continue;
+                    space = true;
+                }
+                else space = false;
+                window = (window << 16) | c;
+                if (length < order) length++;
+                for (int k = 1 ; k <= length ; k++) {
+                    count[hasher.bucket(window, k)]++;
+                    total[1]++;
+                }
+            }
+        }
+
+        /**
+         * Builds the model (additive smoothing of the n-gram counts).
+         */
+        public LanguageModel build() {
+            int size = languages.size();
+            if (size == 0) throw new IllegalStateException("No toponym has been added");
+            int buckets = 1 << bits;
+            long names = 0;
+            for (long[] total : totals) names += total[0];
+            float[] priors = new float[size];
+            double[] logs = new double[size * buckets];
+            double min = 0;
+            for (int l = 0 ; l < size ; l++) {
+                long[] total = totals.get(l);
+                priors[l] = (float)Math.log((double)total[0] / names);
+                int[] count = counts.get(l);
+                double denominator = total[1] + 0.5 * buckets;
+                for (int b = 0 ; b < buckets ; b++) {
+                    double log = Math.log((count[b] + 0.5) / denominator);
+                    logs[b * size + l] = log;
+                    min = Math.min(min, log);
+                }
+            }
+            float scale = (float)(-min / Short.MAX_VALUE);
+            if (scale == 0) scale = 1;
+            short[] table = new short[logs.length];
+            for (int i = 0 ; i < logs.length ; i++) table[i] = (short)Math.round(logs[i] / scale);
+            return new LanguageModel(languages.toArray(new Language[0]), order, bits, priors, table, scale);
+        }
+    }
+
+    /**
+     * Trains a model from a UTF-8 file of labelled toponyms, where each line
+     * starting with a digit contains tab separated fields, the toponym
+     * being the second one and the name of its language the last one.
+     * <p>Usage : <code>java fr.michaelm.util.text.LanguageModel labelled_file model_file</code></p>
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.out.println("Usage : java fr.michaelm.util.text.LanguageModel labelled_file model_file");
+            return;
+        }
+        LanguageModel model = train(new File(args[0]));
+        model.write(new File(args[1]));
+        System.out.println("Language model " + args[1] + " : " + model.size() + " language(s)");
+    }
+
+    /**
+     * Trains a default model (see {@link Trainer#Trainer()}) from a UTF-8
+     * file of labelled toponyms (see {@link #main(String[])}). Lines labelled
+     * with an unknown language are ignored.
+     */
+    public static LanguageModel train(File file) throws IOException {
+        return train(file, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Trains a default model (see {@link Trainer#Trainer()}) from a file of
+     * labelled toponyms encoded with charset.
+     */
+    public static LanguageModel train(File file, Charset charset) throws IOException {
+        Trainer trainer = new Trainer();
+        try (BufferedReader br = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), charset))) {
+            String line;
+            while (null != (line = br.readLine())) {
+                if (line.length() == 0 || line.charAt(0) < '0' || line.charAt(0) > '9') continue;
+                String[] fields = line.split("\t");
+                if (fields.length < 3) continue;
+                Language language = Language.forName(fields[fields.length - 1]);
+                if (language != null) trainer.add(fields[1], language);
+            }
+        }
+        return trainer.build();
+    }
+
+}
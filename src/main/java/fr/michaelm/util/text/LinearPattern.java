@@ -0,0 +1,1190 @@
+/*
+ * (C) 2026 michael.michaud@free.fr
+ */
+
+package fr.michaelm.util.text;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * A regular expression engine running in linear time in the length of the
+ * input (for each match), used instead of java.util.regex for the patterns
+ * it supports, which cannot backtrack catastrophically.
+ * <p>The pattern is compiled into a Thompson NFA, simulated by a Pike
+ * virtual machine : all the possible paths are followed in parallel, in
+ * the order java.util.regex would try them, so that the match found and
+ * the captured groups are the same as with a Matcher.</p>
+ * <p>Supported constructs are literal characters (including \cX), character
+ * classes (without unions or intersections), predefined classes \d \w \s
+ * and their negations, unicode classes \p{..} and \P{..} (outside of
+ * character classes), ., groups, alternations, greedy and reluctant
+ * quantifiers, ^, $, \A, \z, \Z, \b, \B, and lookarounds without
+ * capturing groups.
+ * Supported flags are CASE_INSENSITIVE and DOTALL (also inline).
+ * Back references, possessive quantifiers, atomic and named groups,
+ * other flags and repetitions of patterns matching the empty string are
+ * not supported : {@link #compile(Pattern)} returns null.</p>
+ * <p>Inputs containing surrogate characters (or non spacing marks, for
+ * patterns using word boundaries) are not supported either, see
+ * {@link #accepts(CharSequence)}.</p>
+ * <p>A list of patterns can also be compiled into a single program with
+ * {@link #compile(List)}, which finds in a single pass over the input the
+ * first pattern of the list having a match.</p>
+ *
+ * @author Micha&euml;l Michaud
+ * @version 0.1 (2026-10-19)
+ */
+final class LinearPattern {
+
+    // instructions
+    private static final int CHAR   = 0;  // arg1 = char
+    private static final int SET    = 1;  // arg1 = index of the set
+    private static final int MATCH  = 2;
+    private static final int JMP    = 3;  // arg1 = target
+    private static final int SPLIT  = 4;  // arg1 = preferred target, arg2 = other target
+    private static final int SAVE   = 5;  // arg1 = index in the groups array
+    private static final int ASSERT = 6;  // arg1 = assertion, arg2 = index of the lookaround
+
+    // assertions
+    private static final int BEGIN             = 0;  // ^ \A
+    private static final int END               = 1;  // \z
+    private static final int DOLLAR            = 2;  // $ \Z
+    private static final int WORD_BOUNDARY     = 3;  // \b
+    private static final int NOT_WORD_BOUNDARY = 4;  // \B
+    private static final int AHEAD             = 5;  // (?=
+    private static final int NOT_AHEAD         = 6;  // (?!
+    private static final int BEHIND            = 7;  // (?<=
+    private static final int NOT_BEHIND        = 8;  // (?<!
+
+    // maximum number of instructions (counted repetitions are expanded)
+    private static final int MAX_INSTRUCTIONS = 1000;
+
+    private static final int[] NO_CAPTURE = new int[0];
+
+    private final int[] op;
+    private final int[] arg1;
+    private final int[] arg2;
+    private final BitSet[] sets;
+
+    // lookarounds, and their minimum and maximum lengths
+    private final LinearPattern[] looks;
+    private final int[] lookMin;
+    private final int[] lookMax;
+
+    // characters of the lookarounds made of a fixed sequence of characters
+    // (checked without running their program), or null
+    private final BitSet[][] lookSequences;
+
+    // characters a match can start with, or null if the pattern may match
+    // the empty string
+    private final BitSet firstChars;
+
+    private final int groupCount;
+
+    private final boolean wordBoundary;
+
+    private final ThreadLocal<Scratch> scratch;
+
+    // true if java.util.regex may backtrack on the pattern (unbounded
+    // repetitions) or evaluates lookarounds
+    private boolean preferred;
+
+    // for a program compiled from a list of patterns : the first
+    // instruction of each pattern, the pattern of each instruction, the
+    // characters each pattern can start with (null if it may match the
+    // empty string), and for each character c < 256, the patterns which
+    // can start with c, in the order of the list
+    private int[] starts;
+    private int[] patternOf;
+    private BitSet[] startChars;
+    private int[][] startTable;
+
+    private LinearPattern(Compiler compiler, int groupCount, boolean wordBoundary) {
+        this.op = compiler.op.toArray();
+        this.arg1 = compiler.arg1.toArray();
+        this.arg2 = compiler.arg2.toArray();
+        this.sets = compiler.sets.toArray(new BitSet[0]);
+        this.looks = compiler.looks.toArray(new LinearPattern[0]);
+        this.lookMin = compiler.lookMin.toArray();
+        this.lookMax = compiler.lookMax.toArray();
+        this.lookSequences = compiler.lookSequences.toArray(new BitSet[0][]);
+        this.groupCount = groupCount;
+        this.wordBoundary = wordBoundary;
+        this.firstChars = firstChars(0);
+        final int size = op.length;
+        final int width = groupCount < 0 ? 0 : 2 * (groupCount + 1);
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(size, width));
+    }
+
+    /**
+     * Returns a LinearPattern giving the same matches as pattern, or null if
+     * pattern uses unsupported constructs.
+     */
+    static LinearPattern compile(Pattern pattern) {
+        if ((pattern.flags() & ~(Pattern.CASE_INSENSITIVE | Pattern.DOTALL)) != 0) return null;
+        String src = pattern.pattern();
+        for (int i = 0 ; i < src.length() ; i++) {
+            if (Character.isSurrogate(src.charAt(i))) return null;
+        }
+        try {
+            Parser parser = new Parser(src, pattern.flags(), true);
+            Node root = parser.alternation();
+            if (parser.pos != src.length()) return null;
+            LinearPattern linearPattern = compile(root, parser.groupCount, true);
+            linearPattern.preferred = parser.unbounded || parser.lookaround;
+            return linearPattern;
+        } catch(Unsupported e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns a LinearPattern searching all the patterns at once (see
+     * {@link #firstMatch(CharSequence)}), or null if one of them uses
+     * unsupported constructs.
+     * Capturing groups are ignored, and thus supported everywhere.
+     */
+    static LinearPattern compile(List<Pattern> patterns) {
+        Compiler compiler = new Compiler();
+        compiler.captures = false;
+        int[] starts = new int[patterns.size()];
+        IntList patternOf = new IntList();
+        try {
+            for (int k = 0 ; k < starts.length ; k++) {
+                Pattern pattern = patterns.get(k);
+                if ((pattern.flags() & ~(Pattern.CASE_INSENSITIVE | Pattern.DOTALL)) != 0) return null;
+                String src = pattern.pattern();
+                for (int i = 0 ; i < src.length() ; i++) {
+                    if (Character.isSurrogate(src.charAt(i))) return null;
+                }
+                Parser parser = new Parser(src, pattern.flags(), false);
+                Node root = parser.alternation();
+                if (parser.pos != src.length()) return null;
+                starts[k] = compiler.op.size();
+                compiler.limit = starts[k] + MAX_INSTRUCTIONS;
+                compiler.emit(root);
+                compiler.emit(MATCH, 0, 0);
+                while (patternOf.size() < compiler.op.size()) patternOf.add(k);
+            }
+        } catch(Unsupported e) {
+            return null;
+        }
+        LinearPattern linearPattern = new LinearPattern(compiler, -1, compiler.wordBoundary);
+        linearPattern.starts = starts;
+        linearPattern.patternOf = patternOf.toArray();
+        linearPattern.startChars = new BitSet[starts.length];
+        for (int k = 0 ; k < starts.length ; k++) {
+            linearPattern.startChars[k] = linearPattern.firstChars(starts[k]);
+        }
+        linearPattern.startTable = new int[256][];
+        IntList list = new IntList();
+        for (int c = 0 ; c < 256 ; c++) {
+            list.clear();
+            for (int k = 0 ; k < starts.length ; k++) {
+                BitSet chars = linearPattern.startChars[k];
+                if (chars == null || chars.get(c)) list.add(k);
+            }
+            linearPattern.startTable[c] = list.toArray();
+        }
+        return linearPattern;
+    }
+
+    // Compiles root, with capturing groups if captures is true
+    private static LinearPattern compile(Node root, int groupCount, boolean captures) {
+        Compiler compiler = new Compiler();
+        compiler.captures = captures;
+        if (captures) compiler.emit(SAVE, 0, 0);
+        compiler.emit(root);
+        if (captures) compiler.emit(SAVE, 1, 0);
+        compiler.emit(MATCH, 0, 0);
+        if (compiler.op.size() > MAX_INSTRUCTIONS) throw new Unsupported();
+        return new LinearPattern(compiler, captures ? groupCount : -1, compiler.wordBoundary);
+    }
+
+    // Returns the characters of the first instructions consuming a
+    // character from start, or null if MATCH can be reached without
+    // consuming one
+    private BitSet firstChars(int start) {
+        BitSet chars = new BitSet();
+        boolean[] visited = new boolean[op.length];
+        List<Integer> stack = new ArrayList<>();
+        stack.add(start);
+        while (!stack.isEmpty()) {
+            int pc = stack.remove(stack.size() - 1);
+            if (visited[pc]) continue;
+            visited[pc] = true;
+            switch (op[pc]) {
+                case CHAR : chars.set(arg1[pc]); break;
+                case SET : chars.or(sets[arg1[pc]]); break;
+                case MATCH : return null;
+                case JMP : stack.add(arg1[pc]); break;
+                case SPLIT :
+                    stack.add(arg1[pc]);
+                    stack.add(arg2[pc]);
+                    break;
+                default : stack.add(pc + 1);
+            }
+        }
+        return chars;
+    }
+
+    /**
+     * Returns a LinearPattern for pattern if it is supported and should be
+     * used instead of java.util.regex, or null : java.util.regex is faster
+     * for simple patterns (it searches literal prefixes with Boyer-Moore),
+     * but may backtrack on patterns using unbounded repetitions (* + {n,})
+     * and evaluates lookarounds at each index.
+     */
+    static LinearPattern select(Pattern pattern) {
+        LinearPattern linearPattern = compile(pattern);
+        return linearPattern != null && linearPattern.preferred ? linearPattern : null;
+    }
+
+    /**
+     * Returns the number of capturing groups of the pattern.
+     */
+    int groupCount() {
+        return groupCount;
+    }
+
+    /**
+     * Returns true if s can be searched with this LinearPattern : s must not
+     * contain surrogate characters (code points are not handled) nor, if the
+     * pattern uses word boundaries, non spacing marks.
+     */
+    boolean accepts(CharSequence s) {
+        for (int i = 0, len = s.length() ; i < len ; i++) {
+            char c = s.charAt(i);
+            if (c < '\u0300') continue;
+            if (Character.isSurrogate(c)) return false;
+            if (wordBoundary && Character.getType(c) == Character.NON_SPACING_MARK) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Finds the next match of the pattern in s, starting at index from, as
+     * Matcher.find would do.
+     * @param groups array of size 2 * (groupCount() + 1) receiving the start
+     *               and end index of the match and of each group (-1 for
+     *               groups which did not participate in the match)
+     * @return true if a match has been found
+     */
+    boolean find(CharSequence s, int from, int[] groups) {
+        return run(s, from, false, -1, groups);
+    }
+
+    /**
+     * Returns the index of the first pattern of the list this LinearPattern
+     * has been compiled from (see {@link #compile(List)}) having a match in
+     * s, as Matcher.find would find it, or -1 if none of them has a match.
+     * All the patterns are searched in a single pass over s.
+     */
+    int firstMatch(CharSequence s) {
+        Scratch scratch = this.scratch.get();
+        if (scratch.busy) {
+            scratch = new Scratch(op.length, 0);
+        }
+        scratch.busy = true;
+        try {
+            return firstMatch(scratch, s);
+        } finally {
+            scratch.busy = false;
+        }
+    }
+
+    private int firstMatch(Scratch scratch, CharSequence s) {
+        int n = s.length();
+        ThreadList clist = scratch.clist;
+        ThreadList nlist = scratch.nlist;
+        // index of the best pattern found so far
+        int best = starts.length;
+        clist.clear();
+        for (int i = 0 ; i <= n ; i++) {
+            // start the patterns which may match from i : as captures are
+            // ignored, a thread started at i reaching an instruction
+            // already reached by an earlier thread can be dropped
+            int c = i < n ? s.charAt(i) : -1;
+            if (c >= 0 && c < 256) {
+                int[] candidates = startTable[c];
+                for (int j = 0 ; j < candidates.length && candidates[j] < best ; j++) {
+                    add(clist, starts[candidates[j]], s, i, NO_CAPTURE);
+                }
+            }
+            else {
+                for (int k = 0 ; k < best ; k++) {
+                    BitSet chars = startChars[k];
+                    if (chars == null || (c >= 0 && chars.get(c))) add(clist, starts[k], s, i, NO_CAPTURE);
+                }
+            }
+            nlist.clear();
+            for (int t = 0 ; t < clist.count ; t++) {
+                int pc = clist.pc[t];
+                if (patternOf[pc] >= best) continue;
+                switch (op[pc]) {
+                    case CHAR :
+                        if (c == arg1[pc]) add(nlist, pc + 1, s, i + 1, NO_CAPTURE);
+                        break;
+                    case SET :
+                        if (c >= 0 && sets[arg1[pc]].get(c)) add(nlist, pc + 1, s, i + 1, NO_CAPTURE);
+                        break;
+                    case MATCH :
+                        best = patternOf[pc];
+                        break;
+                    default :
+                        break;
+                }
+            }
+            if (best == 0) break;
+            ThreadList tmp = clist;
+            clist = nlist;
+            nlist = tmp;
+        }
+        scratch.clist = clist;
+        scratch.nlist = nlist;
+        return best == starts.length ? -1 : best;
+    }
+
+    // Runs the program from index from (only from this index if anchored),
+    // accepting a match only if it ends at index end (if end >= 0).
+    // If groups is null, returns as soon as any match is found.
+    private boolean run(CharSequence s, int from, boolean anchored, int end, int[] groups) {
+        Scratch scratch = this.scratch.get();
+        if (scratch.busy) {
+            // re-entrant call (same lookaround evaluated inside itself)
+            scratch = new Scratch(op.length, scratch.initial.length);
+        }
+        scratch.busy = true;
+        try {
+            return run(scratch, s, from, anchored, end, groups);
+        } finally {
+            scratch.busy = false;
+        }
+    }
+
+    private boolean run(Scratch scratch, CharSequence s, int from, boolean anchored,
+                        int end, int[] groups) {
+        int n = s.length();
+        int last = end >= 0 ? end : n;
+        ThreadList clist = scratch.clist;
+        ThreadList nlist = scratch.nlist;
+        int[] initial = scratch.initial;
+        clist.clear();
+        boolean matched = false;
+        for (int i = from ; i <= last ; i++) {
+            if (clist.count == 0 && !matched && !anchored && firstChars != null) {
+                // go to the next character a match can start with
+                while (i < last && !firstChars.get(s.charAt(i))) i++;
+                if (i == last) break;
+                clist.clear();
+            }
+            if (!matched && (!anchored || i == from)) {
+                for (int k = 0 ; k < initial.length ; k++) initial[k] = -1;
+                add(clist, 0, s, i, initial);
+            }
+            if (clist.count == 0) {
+                // no more thread : try the next index, unless a match has
+                // been found or the search is anchored
+                if (matched || anchored) break;
+                clist.clear();
+                continue;
+            }
+            nlist.clear();
+            int c = i < n ? s.charAt(i) : -1;
+            for (int t = 0 ; t < clist.count ; t++) {
+                int pc = clist.pc[t];
+                switch (op[pc]) {
+                    case CHAR :
+                        if (c == arg1[pc] && i < last) add(nlist, pc + 1, s, i + 1, clist.caps[t]);
+                        break;
+                    case SET :
+                        if (c >= 0 && i < last && sets[arg1[pc]].get(c)) add(nlist, pc + 1, s, i + 1, clist.caps[t]);
+                        break;
+                    case MATCH :
+                        if (end >= 0 && i != end) break;
+                        if (groups == null) return true;
+                        matched = true;
+                        System.arraycopy(clist.caps[t], 0, groups, 0, groups.length);
+                        // threads with a lower priority are discarded
+                        t = clist.count;
+                        break;
+                    default :
+                        break;
+                }
+            }
+            ThreadList tmp = clist;
+            clist = nlist;
+            nlist = tmp;
+        }
+        scratch.clist = clist;
+        scratch.nlist = nlist;
+        return matched;
+    }
+
+    // Adds the thread at pc to list, following control instructions in
+    // priority order
+    private void add(ThreadList list, int pc, CharSequence s, int i, int[] caps) {
+        if (list.mark[pc] == list.generation) return;
+        list.mark[pc] = list.generation;
+        switch (op[pc]) {
+            case JMP :
+                add(list, arg1[pc], s, i, caps);
+                return;
+            case SPLIT :
+                add(list, arg1[pc], s, i, caps);
+                add(list, arg2[pc], s, i, caps);
+                return;
+            case SAVE : {
+                int k = arg1[pc];
+                int old = caps[k];
+                caps[k] = i;
+                add(list, pc + 1, s, i, caps);
+                caps[k] = old;
+                return;
+            }
+            case ASSERT :
+                if (check(arg1[pc], arg2[pc], s, i)) add(list, pc + 1, s, i, caps);
+                return;
+            default :
+                int t = list.count++;
+                list.pc[t] = pc;
+                System.arraycopy(caps, 0, list.caps[t], 0, caps.length);
+        }
+    }
+
+    // Checks an assertion at index i, as java.util.regex does for the
+    // whole input (non multiline mode, anchoring and opaque bounds)
+    private boolean check(int assertion, int look, CharSequence s, int i) {
+        int n = s.length();
+        switch (assertion) {
+            case BEGIN : return i == 0;
+            case END : return i == n;
+            case DOLLAR :
+                if (i < n - 2) return false;
+                if (i == n - 2) return s.charAt(i) == '\r' && s.charAt(i + 1) == '\n';
+                if (i == n - 1) {
+                    char c = s.charAt(i);
+                    if (c == '\n') return i == 0 || s.charAt(i - 1) != '\r';
+                    return c == '\r' || c == '\u0085' || (c | 1) == '\u2029';
+                }
+                return true;
+            case WORD_BOUNDARY : return isWord(s, i - 1) != isWord(s, i);
+            case NOT_WORD_BOUNDARY : return isWord(s, i - 1) == isWord(s, i);
+            case AHEAD : return ahead(look, s, i);
+            case NOT_AHEAD : return !ahead(look, s, i);
+            case BEHIND : return behind(look, s, i);
+            case NOT_BEHIND : return !behind(look, s, i);
+            default : throw new IllegalStateException("Unknown assertion " + assertion);
+        }
+    }
+
+    private boolean ahead(int look, CharSequence s, int i) {
+        BitSet[] sequence = lookSequences[look];
+        if (sequence == null) return looks[look].run(s, i, true, -1, null);
+        if (i + sequence.length > s.length()) return false;
+        for (int k = 0 ; k < sequence.length ; k++) {
+            if (!sequence[k].get(s.charAt(i + k))) return false;
+        }
+        return true;
+    }
+
+    private boolean behind(int look, CharSequence s, int i) {
+        BitSet[] sequence = lookSequences[look];
+        if (sequence != null) {
+            int start = i - sequence.length;
+            if (start < 0) return false;
+            for (int k = 0 ; k < sequence.length ; k++) {
+                if (!sequence[k].get(s.charAt(start + k))) return false;
+            }
+            return true;
+        }
+        for (int j = i - lookMin[look], min = Math.max(0, i - lookMax[look]) ; j >= min ; j--) {
+            if (looks[look].run(s, j, true, i, null)) return true;
+        }
+        return false;
+    }
+
+    private static boolean isWord(CharSequence s, int i) {
+        return i >= 0 && i < s.length() && WordChars.WORD_CHARS.get(s.charAt(i));
+    }
+
+    /**
+     * Characters considered as word characters by \b in java.util.regex
+     * (the definition depends on the java version).
+     */
+    private static final class WordChars {
+        static final BitSet WORD_CHARS = new BitSet(Character.MAX_VALUE + 1);
+        static {
+            java.util.regex.Matcher m = Pattern.compile("\\b").matcher("");
+            for (int c = 0 ; c <= Character.MAX_VALUE ; c++) {
+                if (Character.isSurrogate((char)c)) continue;
+                if (m.reset(String.valueOf((char)c)).lookingAt()) WORD_CHARS.set(c);
+            }
+        }
+    }
+
+    /**
+     * Threads of the virtual machine at a given index.
+     */
+    private static final class ThreadList {
+        final int[] pc;
+        final int[][] caps;
+        final int[] mark;
+        int generation;
+        int count;
+
+        ThreadList(int size, int width) {
+            pc = new int[size];
+            caps = new int[size][width];
+            mark = new int[size];
+        }
+
+        void clear() {
+            count = 0;
+            if (++generation == 0) {
+                java.util.Arrays.fill(mark, 0);
+                generation = 1;
+            }
+        }
+    }
+
+    /**
+     * Per-thread working memory.
+     */
+    private static final class Scratch {
+        ThreadList clist;
+        ThreadList nlist;
+        final int[] initial;
+        boolean busy;
+
+        Scratch(int size, int width) {
+            clist = new ThreadList(size, width);
+            nlist = new ThreadList(size, width);
+            initial = new int[width];
+        }
+    }
+
+    /**
+     * Thrown by the parser for unsupported constructs.
+     */
+    private static final class Unsupported extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        Unsupported() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * Node of the syntax tree of a pattern.
+     */
+    private static final class Node {
+        static final int SET = 0, ASSERT = 1, GROUP = 2, CONCAT = 3, ALT = 4, REPEAT = 5, LOOK = 6;
+
+        final int type;
+        BitSet set;                              // SET
+        int assertion;                           // ASSERT, LOOK
+        LinearPattern look;                      // LOOK
+        int lookMin, lookMax;                    // LOOK
+        BitSet[] lookSequence;                   // LOOK, or null
+        int group;                               // GROUP
+        final List<Node> children = new ArrayList<>(); // GROUP, CONCAT, ALT, REPEAT
+        int min, max;                            // REPEAT, max = -1 if unbounded
+        boolean greedy;                          // REPEAT
+
+        Node(int type) {
+            this.type = type;
+        }
+
+        boolean nullable() {
+            switch (type) {
+                case SET : return false;
+                case CONCAT :
+                    for (Node child : children) if (!child.nullable()) return false;
+                    return true;
+                case ALT :
+                    for (Node child : children) if (child.nullable()) return true;
+                    return false;
+                case GROUP : return children.get(0).nullable();
+                case REPEAT : return min == 0 || children.get(0).nullable();
+                default : return true;
+            }
+        }
+
+        // Returns the sets of a fixed sequence of characters, or null
+        BitSet[] sequence() {
+            if (type == SET) return new BitSet[]{set};
+            if (type != CONCAT || children.isEmpty()) return null;
+            BitSet[] sequence = new BitSet[children.size()];
+            for (int i = 0 ; i < sequence.length ; i++) {
+                if (children.get(i).type != SET) return null;
+                sequence[i] = children.get(i).set;
+            }
+            return sequence;
+        }
+
+        boolean hasGroups() {
+            if (type == GROUP) return true;
+            for (Node child : children) if (child.hasGroups()) return true;
+            return false;
+        }
+
+        int minLength() {
+            switch (type) {
+                case SET : return 1;
+                case CONCAT : {
+                    int length = 0;
+                    for (Node child : children) length += child.minLength();
+                    return length;
+                }
+                case ALT : {
+                    int length = Integer.MAX_VALUE;
+                    for (Node child : children) length = Math.min(length, child.minLength());
+                    return length;
+                }
+                case GROUP : return children.get(0).minLength();
+                case REPEAT : return min * children.get(0).minLength();
+                default : return 0;
+            }
+        }
+
+        // returns -1 if unbounded
+        int maxLength() {
+            switch (type) {
+                case SET : return 1;
+                case CONCAT :
+                case ALT : {
+                    int length = 0;
+                    for (Node child : children) {
+                        int max = child.maxLength();
+                        if (max < 0) return -1;
+                        length = type == CONCAT ? length + max : Math.max(length, max);
+                    }
+                    return length;
+                }
+                case GROUP : return children.get(0).maxLength();
+                case REPEAT : {
+                    int length = children.get(0).maxLength();
+                    if (length < 0 || max < 0) return length == 0 ? 0 : -1;
+                    return max * length;
+                }
+                default : return 0;
+            }
+        }
+    }
+
+    /**
+     * Recursive descent parser building the syntax tree of a pattern.
+     * Unsupported constructs throw Unsupported.
+     */
+    private static final class Parser {
+
+        private final String src;
+        private int pos;
+        private boolean caseInsensitive;
+        private boolean dotAll;
+        private int groupCount;
+        private boolean unbounded;
+        private boolean lookaround;
+        // false if the values of the capturing groups are not needed
+        private final boolean captures;
+        private final int flags;
+
+        Parser(String src, int flags, boolean captures) {
+            this.src = src;
+            this.flags = flags;
+            this.captures = captures;
+            this.caseInsensitive = (flags & Pattern.CASE_INSENSITIVE) != 0;
+            this.dotAll = (flags & Pattern.DOTALL) != 0;
+        }
+
+        private char peek() {
+            if (pos >= src.length()) throw new Unsupported();
+            return src.charAt(pos);
+        }
+
+        private char next() {
+            if (pos >= src.length()) throw new Unsupported();
+            return src.charAt(pos++);
+        }
+
+        Node alternation() {
+            Node first = sequence();
+            if (pos >= src.length() || src.charAt(pos) != '|') return first;
+            Node alt = new Node(Node.ALT);
+            alt.children.add(first);
+            while (pos < src.length() && src.charAt(pos) == '|') {
+                pos++;
+                alt.children.add(sequence());
+            }
+            return alt;
+        }
+
+        Node sequence() {
+            Node sequence = new Node(Node.CONCAT);
+            while (pos < src.length() && src.charAt(pos) != '|' && src.charAt(pos) != ')') {
+                Node atom = atom();
+                if (atom == null) {
+                    // inline flags
+                    if (pos < src.length() && "?*+{".indexOf(src.charAt(pos)) >= 0) throw new Unsupported();
+                    continue;
+                }
+                sequence.children.add(quantified(atom));
+            }
+            return sequence.children.size() == 1 ? sequence.children.get(0) : sequence;
+        }
+
+        Node quantified(Node atom) {
+            if (pos >= src.length()) return atom;
+            int min, max;
+            char c = src.charAt(pos);
+            if (c == '?') { min = 0; max = 1; }
+            else if (c == '*') { min = 0; max = -1; }
+            else if (c == '+') { min = 1; max = -1; }
+            else if (c == '{') {
+                int end = src.indexOf('}', pos);
+                if (end < 0) throw new Unsupported();
+                String bounds = src.substring(pos + 1, end);
+                int comma = bounds.indexOf(',');
+                min = number(comma < 0 ? bounds : bounds.substring(0, comma));
+                max = comma < 0 ? min : comma == bounds.length() - 1 ? -1 : number(bounds.substring(comma + 1));
+                if (max >= 0 && max < min) throw new Unsupported();
+                pos = end;
+            }
+            else return atom;
+            pos++;
+            boolean greedy = true;
+            if (pos < src.length() && src.charAt(pos) == '?') {
+                greedy = false;
+                pos++;
+            }
+            // possessive or repeated quantifiers
+            if (pos < src.length() && "?*+{".indexOf(src.charAt(pos)) >= 0) throw new Unsupported();
+            if (atom.type == Node.ASSERT || atom.type == Node.LOOK) throw new Unsupported();
+            // the repetition of an empty match is handled differently
+            if (max != 1 && atom.nullable()) throw new Unsupported();
+            // java.util.regex may keep the values of the groups of a
+            // previous iteration : groups are only supported if they are
+            // repeated themselves, and not inside another repetition
+            if (captures && max != 1 && (atom.type == Node.GROUP ? atom.children.get(0) : atom).hasGroups()) {
+                throw new Unsupported();
+            }
+            unbounded |= max < 0;
+            Node repeat = new Node(Node.REPEAT);
+            repeat.children.add(atom);
+            repeat.min = min;
+            repeat.max = max;
+            repeat.greedy = greedy;
+            return repeat;
+        }
+
+        private static int number(String s) {
+            if (s.length() == 0 || s.length() > 3) throw new Unsupported();
+            for (int i = 0 ; i < s.length() ; i++) {
+                if (s.charAt(i) < '0' || s.charAt(i) > '9') throw new Unsupported();
+            }
+            return Integer.parseInt(s);
+        }
+
+        Node atom() {
+            char c = next();
+            switch (c) {
+                case '(' : return group();
+                case '[' : return characterClass();
+                case '.' : {
+                    BitSet set = new BitSet();
+                    set.set(0, Character.MAX_VALUE + 1);
+                    if (!dotAll) {
+                        set.clear('\n');
+                        set.clear('\r');
+                        set.clear('\u0085');
+                        set.clear('\u2028', '\u2029' + 1);
+                    }
+                    return set(set);
+                }
+                case '^' : return assertion(BEGIN);
+                case '$' : return assertion(DOLLAR);
+                case '\\': return escape();
+                case '*' :
+                case '+' :
+                case '?' :
+                case '{' : throw new Unsupported();
+                default  : return set(literal(c));
+            }
+        }
+
+        private static Node set(BitSet set) {
+            Node node = new Node(Node.SET);
+            node.set = set;
+            return node;
+        }
+
+        private static Node assertion(int assertion) {
+            Node node = new Node(Node.ASSERT);
+            node.assertion = assertion;
+            return node;
+        }
+
+        private BitSet literal(char c) {
+            BitSet set = new BitSet();
+            set.set(c);
+            return caseInsensitive ? caseClosure(set) : set;
+        }
+
+        // Adds the case variants of ASCII characters, as java.util.regex
+        // does without the UNICODE_CASE flag
+        private static BitSet caseClosure(BitSet set) {
+            for (int c = 'A' ; c <= 'Z' ; c++) {
+                if (set.get(c) || set.get(c + 32)) {
+                    set.set(c);
+                    set.set(c + 32);
+                }
+            }
+            return set;
+        }
+
+        Node group() {
+            int start = pos - 1;
+            boolean saveCaseInsensitive = caseInsensitive;
+            boolean saveDotAll = dotAll;
+            Node node;
+            if (pos < src.length() && src.charAt(pos) == '?') {
+                pos++;
+                char c = next();
+                if (c == ':') {
+                    node = alternation();
+                }
+                else if (c == '=' || c == '!') {
+                    node = look(c == '=' ? AHEAD : NOT_AHEAD);
+                }
+                else if (c == '<' && (peek() == '=' || peek() == '!')) {
+                    node = look(next() == '=' ? BEHIND : NOT_BEHIND);
+                }
+                else {
+                    pos--;
+                    boolean on = true;
+                    while (true) {
+                        c = next();
+                        if (c == 'i') caseInsensitive = on;
+                        else if (c == 's') dotAll = on;
+                        else if (c == '-' && on) on = false;
+                        else break;
+                    }
+                    // (?i) applies to the end of the enclosing group. As
+                    // Pattern.flags() may include these flags (depending on
+                    // the java version), they are only supported at the
+                    // beginning of the pattern
+                    if (c == ')') {
+                        if (start != 0) throw new Unsupported();
+                        return null;
+                    }
+                    if (c != ':') throw new Unsupported();
+                    node = alternation();
+                }
+            }
+            else {
+                node = new Node(Node.GROUP);
+                node.group = ++groupCount;
+                node.children.add(alternation());
+            }
+            if (next() != ')') throw new Unsupported();
+            caseInsensitive = saveCaseInsensitive;
+            dotAll = saveDotAll;
+            return node;
+        }
+
+        private Node look(int assertion) {
+            lookaround = true;
+            Node body = alternation();
+            if (captures && body.hasGroups()) throw new Unsupported();
+            Node node = new Node(Node.LOOK);
+            node.assertion = assertion;
+            node.look = compile(body, 0, false);
+            node.lookMin = body.minLength();
+            node.lookMax = body.maxLength();
+            node.lookSequence = body.sequence();
+            if ((assertion == BEHIND || assertion == NOT_BEHIND) && node.lookMax < 0) throw new Unsupported();
+            return node;
+        }
+
+        Node escape() {
+            char c = next();
+            switch (c) {
+                case 'b' : return assertion(WORD_BOUNDARY);
+                case 'B' : return assertion(NOT_WORD_BOUNDARY);
+                case 'A' : return assertion(BEGIN);
+                case 'z' : return assertion(END);
+                case 'Z' : return assertion(DOLLAR);
+                case 'c' : return set(literal((char)(next() ^ 64)));
+                case 'p' :
+                case 'P' : return set(property(c));
+                default :
+                    BitSet set = predefined(c);
+                    if (set != null) return set(set);
+                    return set(literal(escaped(c)));
+            }
+        }
+
+        // Returns the set of the unicode class \p{name} or \P{name} (or \pX)
+        private BitSet property(char c) {
+            String name;
+            if (peek() == '{') {
+                int end = src.indexOf('}', pos);
+                if (end < 0) throw new Unsupported();
+                name = src.substring(pos + 1, end);
+                pos = end + 1;
+            }
+            else name = String.valueOf(next());
+            return Properties.get("\\" + c + "{" + name + "}", flags & Pattern.CASE_INSENSITIVE);
+        }
+
+        // Returns the set of a predefined class, or null
+        private static BitSet predefined(char c) {
+            BitSet set = new BitSet();
+            switch (Character.toLowerCase(c)) {
+                case 'd' :
+                    set.set('0', '9' + 1);
+                    break;
+                case 'w' :
+                    set.set('0', '9' + 1);
+                    set.set('A', 'Z' + 1);
+                    set.set('a', 'z' + 1);
+                    set.set('_');
+                    break;
+                case 's' :
+                    set.set('\t', '\r' + 1);
+                    set.set(' ');
+                    break;
+                default :
+                    return null;
+            }
+            if (Character.isUpperCase(c)) set.flip(0, Character.MAX_VALUE + 1);
+            return set;
+        }
+
+        // Returns the character escaped by \c
+        private static char escaped(char c) {
+            switch (c) {
+                case 't' : return '\t';
+                case 'n' : return '\n';
+                case 'r' : return '\r';
+                case 'f' : return '\f';
+                case 'a' : return '\u0007';
+                case 'e' : return '\u001B';
+                default :
+                    if (Character.isLetterOrDigit(c) || c >= 128) throw new Unsupported();
+                    return c;
+            }
+        }
+
+        Node characterClass() {
+            BitSet set = new BitSet();
+            boolean negated = peek() == '^';
+            if (negated) pos++;
+            if (peek() == ']') throw new Unsupported();
+            while (true) {
+                char c = next();
+                if (c == ']') break;
+                if (c == '[' || (c == '&' && peek() == '&')) throw new Unsupported();
+                int from;
+                if (c == '\\') {
+                    char e = next();
+                    BitSet predefined = predefined(e);
+                    if (predefined != null) {
+                        if (peek() == '-') throw new Unsupported();
+                        set.or(predefined);
+                        continue;
+                    }
+                    from = escaped(e);
+                }
+                else from = c;
+                int to = from;
+                if (peek() == '-' && src.length() > pos + 1 && src.charAt(pos + 1) != ']') {
+                    pos++;
+                    char t = next();
+                    if (t == '[') throw new Unsupported();
+                    to = t == '\\' ? escaped(next()) : t;
+                    if (to < from || peek() == '-') throw new Unsupported();
+                }
+                set.set(from, to + 1);
+            }
+            if (caseInsensitive) caseClosure(set);
+            if (negated) set.flip(0, Character.MAX_VALUE + 1);
+            return set(set);
+        }
+    }
+
+    /**
+     * Sets of the unicode classes, computed with java.util.regex itself
+     * (the definitions depend on the java version).
+     */
+    private static final class Properties {
+        private static final Map<String,BitSet> SETS = new ConcurrentHashMap<>();
+
+        static BitSet get(String regex, int flags) {
+            BitSet set = SETS.computeIfAbsent(flags + regex, key -> compute(regex, flags));
+            if (set.isEmpty()) throw new Unsupported();
+            return (BitSet)set.clone();
+        }
+
+        // returns an empty set for invalid classes
+        private static BitSet compute(String regex, int flags) {
+            BitSet set = new BitSet(Character.MAX_VALUE + 1);
+            java.util.regex.Matcher m;
+            try {
+                m = Pattern.compile(regex, flags).matcher("");
+            } catch(PatternSyntaxException e) {
+                return set;
+            }
+            for (int c = 0 ; c <= Character.MAX_VALUE ; c++) {
+                if (Character.isSurrogate((char)c)) continue;
+                if (m.reset(String.valueOf((char)c)).matches()) set.set(c);
+            }
+            return set;
+        }
+    }
+
+    /**
+     * Compiles a syntax tree into instructions.
+     */
+    private static final class Compiler {
+
+        final IntList op = new IntList();
+        final IntList arg1 = new IntList();
+        final IntList arg2 = new IntList();
+        final List<BitSet> sets = new ArrayList<>();
+        final List<LinearPattern> looks = new ArrayList<>();
+        final IntList lookMin = new IntList();
+        final IntList lookMax = new IntList();
+        final List<BitSet[]> lookSequences = new ArrayList<>();
+        boolean wordBoundary;
+        // false if groups are compiled without SAVE instructions
+        boolean captures = true;
+        int limit = MAX_INSTRUCTIONS;
+
+        int emit(int instruction, int a1, int a2) {
+            if (op.size() > limit) throw new Unsupported();
+            op.add(instruction);
+            arg1.add(a1);
+            arg2.add(a2);
+            return op.size() - 1;
+        }
+
+        void emit(Node node) {
+            switch (node.type) {
+                case Node.SET :
+                    if (node.set.cardinality() == 1) emit(CHAR, node.set.nextSetBit(0), 0);
+                    else {
+                        emit(SET, sets.size(), 0);
+                        sets.add(node.set);
+                    }
+                    break;
+                case Node.ASSERT :
+                    if (node.assertion == WORD_BOUNDARY || node.assertion == NOT_WORD_BOUNDARY) {
+                        wordBoundary = true;
+                    }
+                    emit(ASSERT, node.assertion, 0);
+                    break;
+                case Node.LOOK :
+                    wordBoundary |= node.look.wordBoundary;
+                    emit(ASSERT, node.assertion, looks.size());
+                    looks.add(node.look);
+                    lookMin.add(node.lookMin);
+                    lookMax.add(node.lookMax);
+                    lookSequences.add(node.lookSequence);
+                    break;
+                case Node.GROUP :
+                    if (captures) emit(SAVE, 2 * node.group, 0);
+                    emit(node.children.get(0));
+                    if (captures) emit(SAVE, 2 * node.group + 1, 0);
+                    break;
+                case Node.CONCAT :
+                    for (Node child : node.children) emit(child);
+                    break;
+                case Node.ALT : {
+                    List<Integer> jumps = new ArrayList<>();
+                    for (int i = 0 ; i < node.children.size() - 1 ; i++) {
+                        int split = emit(SPLIT, op.size() + 1, 0);
+                        emit(node.children.get(i));
+                        jumps.add(emit(JMP, 0, 0));
+                        arg2.set(split, op.size());
+                    }
+                    emit(node.children.get(node.children.size() - 1));
+                    for (int jump : jumps) arg1.set(jump, op.size());
+                    break;
+                }
+                case Node.REPEAT : {
+                    Node child = node.children.get(0);
+                    if (node.max < 0 && node.min > 0) {
+                        // x{n,} : x{n-1} followed by x+
+                        for (int i = 0 ; i < node.min - 1 ; i++) emit(child);
+                        int start = op.size();
+                        emit(child);
+                        if (node.greedy) emit(SPLIT, start, op.size() + 1);
+                        else emit(SPLIT, op.size() + 1, start);
+                    }
+                    else if (node.max < 0) {
+                        int split = emit(SPLIT, 0, 0);
+                        emit(child);
+                        emit(JMP, split, 0);
+                        split(split, node.greedy);
+                    }
+                    else {
+                        for (int i = 0 ; i < node.min ; i++) emit(child);
+                        List<Integer> splits = new ArrayList<>();
+                        for (int i = node.min ; i < node.max ; i++) {
+                            splits.add(emit(SPLIT, 0, 0));
+                            emit(child);
+                        }
+                        for (int split : splits) split(split, node.greedy);
+                    }
+                    break;
+                }
+                default :
+                    throw new IllegalStateException();
+            }
+        }
+
+        // Sets the targets of split : the next instruction, or the current
+        // end of the program
+        private void split(int split, boolean greedy) {
+            arg1.set(split, greedy ? split + 1 : op.size());
+            arg2.set(split, greedy ? op.size() : split + 1);
+        }
+    }
+
+    /**
+     * Growable array of ints.
+     */
+    private static final class IntList {
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) values = java.util.Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        void set(int index, int value) {
+            values[index] = value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        int[] toArray() {
+            return java.util.Arrays.copyOf(values, size);
+        }
+    }
+
+}
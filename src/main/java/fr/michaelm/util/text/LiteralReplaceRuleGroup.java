@@ -0,0 +1,297 @@
+/*
+ * (C) 2026 michael.michaud@free.fr
+ */
+
+package fr.michaelm.util.text;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * A group of consecutive {@link ReplacePatternRule}s whose patterns are
+ * literal strings, alternations of literal strings or simple character
+ * classes, applied in a single pass over the input String.
+ * <p>All the literals of the group are stored in a trie. At each position of
+ * the input, the trie gives the literals starting at this position, and the
+ * one belonging to the first rule (then to the first alternative of this
+ * rule) is replaced.</p>
+ * <p>A rule is accepted in the group only if the single pass gives exactly
+ * the result of the sequential application of the rules, i.e. if :<ul>
+ * <li>its literals have no character in common with the replacement strings
+ * of the previous rules of the group, which must not be empty (so that the
+ * replacement made by a rule can never be matched by a following rule)</li>
+ * <li>no literal of a previous rule of the group can start inside one of its
+ * literals (so that a rule never hides a match of a previous rule)</li>
+ * </ul></p>
+ *
+ * @author Micha&euml;l Michaud
+ * @version 0.1 (2026-10-19)
+ */
+public final class LiteralReplaceRuleGroup extends AbstractRule {
+
+    /** Maximum number of characters of a character class expanded into literals. */
+    private static final int MAX_CLASS_SIZE = 256;
+
+    private final List<ReplacePatternRule> rules = new ArrayList<>();
+
+    private final List<String[]> literals = new ArrayList<>();
+
+    private final List<String> replacements = new ArrayList<>();
+
+    private final Node root = new Node();
+
+    private final BitSet firstChars = new BitSet();
+
+    /** Creates an empty group. */
+    LiteralReplaceRuleGroup() {}
+
+    /**
+     * Returns true if rule is based on literal strings or on a simple
+     * character class, and has a literal replacement string.
+     */
+    static boolean isLiteral(ReplacePatternRule rule) {
+        return getLiterals(rule.getPattern()) != null &&
+               getLiteralReplacement(rule.getReplacement()) != null;
+    }
+
+    /**
+     * Adds rule to this group if it can be applied in the same pass as the
+     * rules already in the group.
+     *
+     * @param rule the rule to add, which must be literal (see {@link #isLiteral})
+     * @return true if the rule has been added
+     */
+    boolean add(ReplacePatternRule rule) {
+        String[] newLiterals = getLiterals(rule.getPattern());
+        String replacement = getLiteralReplacement(rule.getReplacement());
+        if (newLiterals == null || replacement == null) return false;
+        for (int i = 0 ; i < rules.size() ; i++) {
+            String previousReplacement = replacements.get(i);
+            if (previousReplacement.isEmpty()) return false;
+            for (String literal : newLiterals) {
+                for (int k = 0 ; k < literal.length() ; k++) {
+                    if (previousReplacement.indexOf(literal.charAt(k)) >= 0) return false;
+                }
+                for (String previous : literals.get(i)) {
+                    for (int k = 1 ; k < literal.length() ; k++) {
+                        int len = Math.min(previous.length(), literal.length() - k);
+                        if (literal.regionMatches(k, previous, 0, len)) return false;
+                    }
+                }
+            }
+        }
+        int ruleIndex = rules.size();
+        for (int alt = 0 ; alt < newLiterals.length ; alt++) {
+            String literal = newLiterals[alt];
+            Node node = root;
+            for (int k = 0 ; k < literal.length() ; k++) {
+                node = node.getOrCreate(literal.charAt(k));
+            }
+            int priority = ruleIndex << 16 | alt;
+            if (priority < node.priority) {
+                node.priority = priority;
+                node.replacement = replacement;
+            }
+            firstChars.set(literal.charAt(0));
+        }
+        rules.add(rule);
+        literals.add(newLiterals);
+        replacements.add(replacement);
+        return true;
+    }
+
+    /**
+     * Returns the number of rules of this group.
+     */
+    public int size() {
+        return rules.size();
+    }
+
+    /**
+     * Returns the rules fused in this group.
+     */
+    public ReplacePatternRule[] getRules() {
+        return rules.toArray(new ReplacePatternRule[0]);
+    }
+
+    /**
+     * Transforms a String into another String, applying all the rules of the
+     * group in a single pass.
+     * @param s the String to transform
+     * @param context a context object or null if no context information is available
+     * @return the transformed String, or s itself if no rule matches
+     */
+    public String transform(String s, Object context) {
+        if (s == null) return null;
+        int len = s.length();
+        StringBuilder sb = null;
+        int copied = 0;
+        int i = 0;
+        while (i < len) {
+            if (!firstChars.get(s.charAt(i))) {
+                i++;
+                continue;
+            }
+            Node node = root;
+            Node best = null;
+            int bestEnd = i;
+            for (int j = i ; j < len ; j++) {
+                node = node.get(s.charAt(j));
+                if (node == null) break;
+                if (node.replacement != null && (best == null || node.priority < best.priority)) {
+                    best = node;
+                    bestEnd = j + 1;
+                }
+            }
+            if (best == null) {
+                i++;
+                continue;
+            }
+            if (sb == null) sb = new StringBuilder(len + 16);
+            sb.append(s, copied, i).append(best.replacement);
+            i = copied = bestEnd;
+        }
+        if (sb == null) return s;
+        return sb.append(s, copied, len).toString();
+    }
+
+    /**
+     * String representation of this LiteralReplaceRuleGroup.
+     */
+    public String toString() {
+        StringBuilder sb = new StringBuilder("Single pass group of " + rules.size() + " rule(s) :");
+        for (ReplacePatternRule rule : rules) sb.append("\n  ").append(rule);
+        return sb.toString();
+    }
+
+    /**
+     * Returns the literal strings matched by pattern, in the order they are
+     * tried by the regular expression, or null if pattern is not a literal
+     * string, an alternation of literal strings or a simple character class.
+     */
+    static String[] getLiterals(Pattern pattern) {
+        if (pattern.flags() != 0) return null;
+        String src = pattern.pattern();
+        int len = src.length();
+        if (len == 0) return null;
+        if (src.charAt(0) == '[') return getClassLiterals(src);
+        List<String> alternatives = new ArrayList<>();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0 ; i < len ; i++) {
+            char c = src.charAt(i);
+            if (c == '\\') {
+                if (++i == len || Character.isLetterOrDigit(src.charAt(i))) return null;
+                sb.append(src.charAt(i));
+            }
+            else if (c == '|') {
+                if (sb.length() == 0) return null;
+                alternatives.add(sb.toString());
+                sb.setLength(0);
+            }
+            else if (".^$?*+()[]{}".indexOf(c) >= 0) return null;
+            else sb.append(c);
+        }
+        if (sb.length() == 0) return null;
+        alternatives.add(sb.toString());
+        return alternatives.toArray(new String[0]);
+    }
+
+    // Expands a simple character class like [A-CX\-] into single character
+    // literals, or returns null
+    private static String[] getClassLiterals(String src) {
+        int len = src.length();
+        if (len < 3 || src.charAt(len-1) != ']') return null;
+        Set<String> chars = new LinkedHashSet<>();
+        int i = 1;
+        int end = len - 1;
+        if (src.charAt(i) == '^' || src.charAt(i) == ']') return null;
+        while (i < end) {
+            int c = classChar(src, i, end);
+            if (c < 0) return null;
+            i += src.charAt(i) == '\\' ? 2 : 1;
+            int last = c;
+            if (i + 1 < end && src.charAt(i) == '-') {
+                last = classChar(src, i + 1, end);
+                if (last < c) return null;
+                i += src.charAt(i + 1) == '\\' ? 3 : 2;
+            }
+            if (chars.size() + last - c + 1 > MAX_CLASS_SIZE) return null;
+            for (int k = c ; k <= last ; k++) chars.add(String.valueOf((char)k));
+        }
+        return chars.isEmpty() ? null : chars.toArray(new String[0]);
+    }
+
+    // Returns the character at position i of a character class, or -1 if it
+    // is not a simple character
+    private static int classChar(String src, int i, int end) {
+        char c = src.charAt(i);
+        if (c == '\\') {
+            if (i + 1 >= end || Character.isLetterOrDigit(src.charAt(i + 1))) return -1;
+            return src.charAt(i + 1);
+        }
+        if (c == '[' || c == ']' || c == '&' || c == '-') return -1;
+        return c;
+    }
+
+    /**
+     * Returns the string inserted by a replacement string, or null if the
+     * replacement string refers to a capturing group.
+     */
+    static String getLiteralReplacement(String replacement) {
+        if (replacement.indexOf('$') < 0 && replacement.indexOf('\\') < 0) return replacement;
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0 ; i < replacement.length() ; i++) {
+            char c = replacement.charAt(i);
+            if (c == '$') return null;
+            if (c == '\\') {
+                if (++i == replacement.length()) return null;
+                c = replacement.charAt(i);
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Node of the trie containing the literals of the group.
+     */
+    private static final class Node {
+
+        private char[] keys = new char[0];
+
+        private Node[] children = new Node[0];
+
+        // rule index * 65536 + alternative index of the literal ending here
+        private int priority = Integer.MAX_VALUE;
+
+        private String replacement;
+
+        private Node get(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            return i < 0 ? null : children[i];
+        }
+
+        private Node getOrCreate(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            if (i >= 0) return children[i];
+            i = -i - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, i);
+            System.arraycopy(children, 0, newChildren, 0, i);
+            System.arraycopy(keys, i, newKeys, i + 1, keys.length - i);
+            System.arraycopy(children, i, newChildren, i + 1, children.length - i);
+            newKeys[i] = c;
+            newChildren[i] = new Node();
+            keys = newKeys;
+            children = newChildren;
+            return newChildren[i];
+        }
+    }
+
+}
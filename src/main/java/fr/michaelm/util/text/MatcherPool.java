@@ -0,0 +1,73 @@
+/*
+ * (C) 2026 michael.michaud@free.fr
+ */
+
+package fr.michaelm.util.text;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Per-thread reusable Matchers for a fixed list of Patterns.
+ * <p>Pattern.matcher allocates a new Matcher (and its group arrays) for each
+ * input. A MatcherPool keeps one Matcher per Pattern and per thread, and
+ * resets it against the new input, so that rules can be applied
+ * concurrently without allocating a Matcher on each call.</p>
+ * <p>The Matcher returned by {@link #matcher(int, CharSequence)} must be
+ * used before the next call to matcher with the same index in the same
+ * thread, and must not be shared with another thread.</p>
+ *
+ * @author Micha&euml;l Michaud
+ * @version 0.1 (2026-10-19)
+ */
+final class MatcherPool {
+
+    private final Pattern[] patterns;
+
+    private final ThreadLocal<Matcher[]> matchers;
+
+    /**
+     * Creates a MatcherPool for patterns.
+     */
+    MatcherPool(Pattern... patterns) {
+        this.patterns = patterns.clone();
+        final int size = patterns.length;
+        this.matchers = ThreadLocal.withInitial(() -> new Matcher[size]);
+    }
+
+    /**
+     * Creates a MatcherPool for patterns.
+     */
+    MatcherPool(List<Pattern> patterns) {
+        this(patterns.toArray(new Pattern[0]));
+    }
+
+    /**
+     * Returns the number of patterns of this pool.
+     */
+    int size() {
+        return patterns.length;
+    }
+
+    /**
+     * Returns the Pattern at index i.
+     */
+    Pattern pattern(int i) {
+        return patterns[i];
+    }
+
+    /**
+     * Returns the Matcher of the current thread for the pattern at index i,
+     * reset against input.
+     */
+    Matcher matcher(int i, CharSequence input) {
+        Matcher[] array = matchers.get();
+        Matcher matcher = array[i];
+        if (matcher == null) {
+            return array[i] = patterns[i].matcher(input);
+        }
+        return matcher.reset(input);
+    }
+
+}
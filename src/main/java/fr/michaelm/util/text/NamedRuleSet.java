@@ -22,6 +22,7 @@ import java.util.regex.PatternSyntaxException;
  */
 // History
 // 0.1 (2011-05-01)
+// 0.2 (2026-10-19) report cyclic dependencies
 public class NamedRuleSet extends RuleSet {
 
     public NamedRuleSet(String...namedRules) throws RuleNotFoundException {
@@ -57,6 +58,8 @@ public class NamedRuleSet extends RuleSet {
                 else {
                     try {
                         ruleList.add(RuleRegistry.getRule(line));
+                    } catch(RuleCycleException rce) {
+                        throw rce;
                     } catch(RuleNotFoundException rnfe) {
                         rnfe.printStackTrace();
                     }
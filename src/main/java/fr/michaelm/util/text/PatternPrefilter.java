@@ -0,0 +1,416 @@
+/*
+ * (C) 2026 michael.michaud@free.fr
+ */
+
+package fr.michaelm.util.text;
+
+import java.util.BitSet;
+import java.util.regex.Pattern;
+
+/**
+ * A cheap test telling that a String cannot contain any match of a regular
+ * expression, to avoid creating a Matcher in this case.
+ * <p>The prefilter is either the literal matched by the pattern, searched
+ * with String.indexOf, or the set of characters a match can start with,
+ * computed by a conservative analysis of the pattern : zero-width
+ * assertions (^, $, \b, lookarounds...) are skipped and optional atoms let
+ * the following atom start the match.</p>
+ * <p>Patterns which may match the empty string, or using constructs the
+ * analysis does not know, have no prefilter ({@link #of} returns null).</p>
+ *
+ * @author Micha&euml;l Michaud
+ * @version 0.1 (2026-10-19)
+ */
+final class PatternPrefilter {
+
+    private final String literal;
+
+    private final BitSet firstChars;
+
+    private PatternPrefilter(String literal, BitSet firstChars) {
+        this.literal = literal;
+        this.firstChars = firstChars;
+    }
+
+    /**
+     * Returns a prefilter searching literal.
+     */
+    static PatternPrefilter ofLiteral(String literal) {
+        return new PatternPrefilter(literal, null);
+    }
+
+    /**
+     * Returns a prefilter searching any character of firstChars.
+     */
+    static PatternPrefilter ofFirstChars(BitSet firstChars) {
+        return new PatternPrefilter(null, (BitSet)firstChars.clone());
+    }
+
+    /** Returns the literal searched by this prefilter, or null. */
+    String getLiteral() {
+        return literal;
+    }
+
+    /** Returns the characters searched by this prefilter, or null. */
+    BitSet getFirstChars() {
+        return firstChars == null ? null : (BitSet)firstChars.clone();
+    }
+
+    /**
+     * Returns a prefilter for pattern, or null if no useful prefilter can be
+     * computed.
+     */
+    static PatternPrefilter of(Pattern pattern) {
+        String[] literals = LiteralReplaceRuleGroup.getLiterals(pattern);
+        if (literals != null && literals.length == 1) {
+            return new PatternPrefilter(literals[0], null);
+        }
+        Analyzer analyzer = analyze(pattern);
+        if (analyzer == null || analyzer.node.nullable || analyzer.node.any) return null;
+        if (analyzer.caseInsensitive) {
+            return new PatternPrefilter(null, caseClosure(analyzer.node.first));
+        }
+        return new PatternPrefilter(null, analyzer.node.first);
+    }
+
+    /**
+     * Returns the set of all the characters a match of pattern may contain
+     * or look at (in lookarounds), or null if it is not bounded (patterns
+     * using ., negated classes, predefined classes other than \d, back
+     * references or unknown constructs). Word boundaries are not taken into
+     * account (see {@link #usesWordBoundaries(Pattern)}).
+     */
+    static BitSet alphabet(Pattern pattern) {
+        Analyzer analyzer = analyze(pattern);
+        if (analyzer == null || analyzer.unbounded) return null;
+        if (analyzer.caseInsensitive) return caseClosure(analyzer.alphabet);
+        return analyzer.alphabet;
+    }
+
+    /**
+     * Returns true if pattern uses \b or \B, or cannot be analysed.
+     */
+    static boolean usesWordBoundaries(Pattern pattern) {
+        Analyzer analyzer = analyze(pattern);
+        return analyzer == null || analyzer.wordBoundary;
+    }
+
+    // Returns the analysis of pattern, or null if it cannot be analysed
+    private static Analyzer analyze(Pattern pattern) {
+        int flags = pattern.flags();
+        if ((flags & (Pattern.LITERAL | Pattern.COMMENTS |
+                      Pattern.CANON_EQ | Pattern.UNICODE_CHARACTER_CLASS)) != 0) return null;
+        try {
+            Analyzer analyzer = new Analyzer(pattern.pattern(),
+                                             (flags & Pattern.CASE_INSENSITIVE) != 0);
+            analyzer.node = analyzer.alternation();
+            if (analyzer.pos != analyzer.src.length()) return null;
+            return analyzer;
+        } catch(RuntimeException e) {
+            // unexpected syntax : no analysis
+            return null;
+        }
+    }
+
+    // Adds to chars all the characters a case insensitive matching may
+    // consider equal to one of them (including unicode case folding)
+    private static BitSet caseClosure(BitSet chars) {
+        BitSet keys = new BitSet();
+        for (int c = chars.nextSetBit(0) ; c >= 0 ; c = chars.nextSetBit(c+1)) {
+            char u = Character.toUpperCase((char)c);
+            keys.set(u);
+            keys.set(Character.toLowerCase((char)c));
+            keys.set(Character.toLowerCase(u));
+        }
+        BitSet closure = (BitSet)chars.clone();
+        for (int c = 0 ; c <= Character.MAX_VALUE ; c++) {
+            char u = Character.toUpperCase((char)c);
+            if (keys.get(u) || keys.get(Character.toLowerCase((char)c)) ||
+                keys.get(Character.toLowerCase(u))) closure.set(c);
+        }
+        return closure;
+    }
+
+    /**
+     * Returns false if a String made of characters from chars cannot contain
+     * any match of the pattern.
+     */
+    boolean mayMatchChars(BitSet chars) {
+        if (literal != null) {
+            for (int i = 0 ; i < literal.length() ; i++) {
+                if (!chars.get(literal.charAt(i))) return false;
+            }
+            return true;
+        }
+        return firstChars.intersects(chars);
+    }
+
+    /**
+     * Returns false if s cannot contain any match of the pattern.
+     */
+    boolean mayMatch(CharSequence s) {
+        if (literal != null) {
+            if (s instanceof String) return ((String)s).contains(literal);
+            return s.toString().contains(literal);
+        }
+        for (int i = 0, len = s.length() ; i < len ; i++) {
+            if (firstChars.get(s.charAt(i))) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Result of the analysis of a part of a regular expression.
+     */
+    private static final class Node {
+        boolean nullable;        // may match the empty string
+        boolean any;             // may start with any character
+        BitSet first = new BitSet(); // characters a non-empty match may start with
+
+        static Node empty() {
+            Node node = new Node();
+            node.nullable = true;
+            return node;
+        }
+
+        static Node any() {
+            Node node = new Node();
+            node.any = true;
+            return node;
+        }
+
+        static Node of(char c) {
+            Node node = new Node();
+            node.first.set(c);
+            return node;
+        }
+    }
+
+    /**
+     * Recursive descent analysis of a regular expression.
+     * Unsupported constructs throw an IllegalArgumentException.
+     */
+    private static final class Analyzer {
+
+        final String src;
+        int pos;
+        boolean caseInsensitive;
+        Node node;                            // result of the analysis
+        final BitSet alphabet = new BitSet(); // all the characters of the leaves
+        boolean unbounded;                    // a leaf may match any character
+        boolean wordBoundary;                 // pattern uses \b or \B
+
+        Analyzer(String src, boolean caseInsensitive) {
+            this.src = src;
+            this.caseInsensitive = caseInsensitive;
+        }
+
+        Node alternation() {
+            Node result = sequence();
+            while (pos < src.length() && src.charAt(pos) == '|') {
+                pos++;
+                Node next = sequence();
+                result.nullable |= next.nullable;
+                result.any |= next.any;
+                result.first.or(next.first);
+            }
+            return result;
+        }
+
+        Node sequence() {
+            Node result = Node.empty();
+            while (pos < src.length() && src.charAt(pos) != '|' && src.charAt(pos) != ')') {
+                Node atom = quantified(atom());
+                if (result.nullable) {
+                    result.any |= atom.any;
+                    result.first.or(atom.first);
+                    result.nullable = atom.nullable;
+                }
+            }
+            return result;
+        }
+
+        Node quantified(Node atom) {
+            if (pos >= src.length()) return atom;
+            char c = src.charAt(pos);
+            if (c == '?' || c == '*') {
+                pos++;
+                atom.nullable = true;
+            }
+            else if (c == '+') {
+                pos++;
+            }
+            else if (c == '{') {
+                int end = src.indexOf('}', pos);
+                if (end < 0) throw new IllegalArgumentException();
+                String bounds = src.substring(pos + 1, end);
+                int comma = bounds.indexOf(',');
+                int min = Integer.parseInt(comma < 0 ? bounds : bounds.substring(0, comma));
+                if (min == 0) atom.nullable = true;
+                pos = end + 1;
+            }
+            else return atom;
+            // reluctant or possessive quantifier
+            if (pos < src.length() && (src.charAt(pos) == '?' || src.charAt(pos) == '+')) pos++;
+            return quantified(atom);
+        }
+
+        // Records the characters of a leaf of the pattern
+        Node leaf(Node leaf) {
+            if (leaf.any) unbounded = true;
+            alphabet.or(leaf.first);
+            return leaf;
+        }
+
+        Node atom() {
+            char c = src.charAt(pos++);
+            switch (c) {
+                case '^' :
+                case '$' :
+                    // anchors may look at line terminators
+                    alphabet.set('\n');
+                    alphabet.set('\r');
+                    alphabet.set('\u0085');
+                    alphabet.set('\u2028', '\u2029' + 1);
+                    return Node.empty();
+                case '.' : return leaf(Node.any());
+                case '[' : return leaf(characterClass());
+                case '(' : return group();
+                case '\\': return leaf(escape());
+                case '*' :
+                case '+' :
+                case '?' :
+                case '{' : throw new IllegalArgumentException();
+                default  : return leaf(Node.of(c));
+            }
+        }
+
+        Node group() {
+            boolean zeroWidth = false;
+            if (src.startsWith("?", pos)) {
+                pos++;
+                char c = src.charAt(pos);
+                if (c == ':' || c == '>') pos++;
+                else if (c == '=' || c == '!') {
+                    pos++;
+                    zeroWidth = true;
+                }
+                else if (c == '<' && (src.charAt(pos+1) == '=' || src.charAt(pos+1) == '!')) {
+                    pos += 2;
+                    zeroWidth = true;
+                }
+                else if (c == '<') {
+                    // named group
+                    int end = src.indexOf('>', pos);
+                    if (end < 0) throw new IllegalArgumentException();
+                    pos = end + 1;
+                }
+                else {
+                    // inline flags (?i) or (?i:...)
+                    int start = pos;
+                    while (pos < src.length() && ":)".indexOf(src.charAt(pos)) < 0) pos++;
+                    String flags = src.substring(start, pos);
+                    if (flags.indexOf('x') >= 0 || flags.indexOf('U') >= 0 ||
+                        flags.indexOf('-') >= 0) throw new IllegalArgumentException();
+                    if (flags.indexOf('i') >= 0) caseInsensitive = true;
+                    if (src.charAt(pos++) == ')') return Node.empty();
+                }
+            }
+            Node node = alternation();
+            if (pos >= src.length() || src.charAt(pos++) != ')') throw new IllegalArgumentException();
+            return zeroWidth ? Node.empty() : node;
+        }
+
+        Node escape() {
+            char c = src.charAt(pos++);
+            switch (c) {
+                case 'b' : case 'B' :
+                    wordBoundary = true;
+                    return Node.empty();
+                case 'A' : case 'z' : case 'Z' : case 'G' :
+                    return Node.empty();
+                case 't' : return Node.of('\t');
+                case 'n' : return Node.of('\n');
+                case 'r' : return Node.of('\r');
+                case 'f' : return Node.of('\f');
+                case 'd' : {
+                    Node node = new Node();
+                    node.first.set('0', '9' + 1);
+                    return node;
+                }
+                case 'Q' : {
+                    int end = src.indexOf("\\E", pos);
+                    if (end == pos) throw new IllegalArgumentException();
+                    Node node = Node.of(src.charAt(pos));
+                    for (int i = pos, max = end < 0 ? src.length() : end ; i < max ; i++) {
+                        alphabet.set(src.charAt(i));
+                    }
+                    pos = end < 0 ? src.length() : end + 2;
+                    return node;
+                }
+                default :
+                    if (Character.isLetterOrDigit(c)) {
+                        // \w, \s, \p{..}, back references... : anything
+                        if (c == 'p' || c == 'P' || c == 'k') skipBraces();
+                        Node node = Node.any();
+                        // a back reference may match the empty string
+                        node.nullable = Character.isDigit(c) || c == 'k';
+                        return node;
+                    }
+                    return Node.of(c);
+            }
+        }
+
+        private void skipBraces() {
+            if (pos < src.length() && (src.charAt(pos) == '{' || src.charAt(pos) == '<')) {
+                char close = src.charAt(pos) == '{' ? '}' : '>';
+                int end = src.indexOf(close, pos);
+                if (end < 0) throw new IllegalArgumentException();
+                pos = end + 1;
+            } else pos++;
+        }
+
+        Node characterClass() {
+            Node node = new Node();
+            boolean negated = src.charAt(pos) == '^';
+            if (negated) pos++;
+            boolean first = true;
+            while (true) {
+                char c = src.charAt(pos++);
+                if (c == ']' && !first) break;
+                first = false;
+                if (c == '[' || (c == '&' && src.charAt(pos) == '&')) throw new IllegalArgumentException();
+                int from;
+                if (c == '\\') {
+                    char e = src.charAt(pos++);
+                    if (e == 'd') {
+                        node.first.set('0', '9' + 1);
+                        continue;
+                    }
+                    else if (Character.isLetterOrDigit(e)) {
+                        if (e == 'p' || e == 'P') skipBraces();
+                        node.any = true;
+                        continue;
+                    }
+                    from = e;
+                }
+                else from = c;
+                int to = from;
+                if (src.charAt(pos) == '-' && src.charAt(pos+1) != ']') {
+                    pos++;
+                    char t = src.charAt(pos++);
+                    if (t == '\\') {
+                        t = src.charAt(pos++);
+                        if (Character.isLetterOrDigit(t)) throw new IllegalArgumentException();
+                    }
+                    else if (t == '[') throw new IllegalArgumentException();
+                    to = t;
+                }
+                node.first.set(from, to + 1);
+            }
+            if (negated) return Node.any();
+            return node;
+        }
+    }
+
+}
@@ -4,23 +4,58 @@
 
 package fr.michaelm.util.text;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 /**
  * A rule transforming a string into another string, based on a regular
  * expression and a replacement String.
+ * <p>A prefilter computed from the pattern (see {@link PatternPrefilter})
+ * detects most strings which cannot match, which are returned as is without
+ * creating a Matcher.</p>
+ * <p>Matchers are reused per thread (see {@link MatcherPool}), and the
+ * replacement string is parsed once into literal parts and group numbers,
+ * appended to a StringBuilder created at the first match.</p>
+ * <p>Patterns using unbounded repetitions or lookarounds are matched by a
+ * linear-time engine (see {@link LinearPattern}) when they are supported by
+ * it, so that they cannot backtrack catastrophically.</p>
  *
  * @author Micha&euml;l Michaud
- * @version 0.1 (2011-05-01)
+ * @version 0.3 (2026-10-19)
  */
 // History
 // 0.1 (2011-05-01)
+// 0.2 (2026-10-19) add a prefilter to skip strings which cannot match,
+//                  reuse matchers and pre-parse the replacement string,
+//                  use a linear-time engine for backtracking-prone patterns
+// 0.3 (2026-10-19) keep the flags the pattern has been compiled with
 public class ReplacePatternRule extends AbstractRule {
 
     private final Pattern _pattern;
+
+    // flags passed to Pattern.compile, or -1 if unknown
+    private final int _flags;
     
     private final String _replacement;
 
+    // null if no prefilter could be computed from the pattern
+    private final PatternPrefilter _prefilter;
+
+    private final MatcherPool _matchers;
+
+    // replacement = _texts[0] + group(_groups[0]) + _texts[1] + ...
+    // null if the replacement string uses named groups or is not valid, in
+    // which case Matcher.replaceAll is used
+    private final String[] _texts;
+
+    private final int[] _groups;
+
+    // linear-time engine, or null to use java.util.regex
+    private final LinearPattern _linear;
+
     /**
      * Creates a new Pattern rule from a pattern String and a replacement String.
      *
@@ -28,8 +63,23 @@ public class ReplacePatternRule extends AbstractRule {
      * @param replacement the replacement string
      */
     public ReplacePatternRule(String pattern, String replacement) {
-        this._pattern = Pattern.compile(pattern);
-        this._replacement = replacement;
+        this(pattern, 0, replacement);
+    }
+
+    /**
+     * Creates a new Pattern rule from a pattern String compiled with flags
+     * and a replacement String.
+     *
+     * @param pattern the string representation of the regular expression pattern
+     * @param flags the match flags (see {@link Pattern#compile(String, int)})
+     * @param replacement the replacement string
+     */
+    public ReplacePatternRule(String pattern, int flags, String replacement) {
+        this(Pattern.compile(pattern, flags), flags, replacement);
+    }
+
+    private ReplacePatternRule(Pattern pattern, int flags, String replacement) {
+        this(pattern, flags, replacement, PatternPrefilter.of(pattern));
     }
 
     /**
@@ -40,19 +90,106 @@ public class ReplacePatternRule extends AbstractRule {
      * @param replacement the replacement string
      */
     public ReplacePatternRule(Pattern pattern, String replacement) {
+        this(pattern, compileFlags(pattern), replacement);
+    }
+
+    /**
+     * Creates a new ReplacePatternRule rule from a Pattern compiled with
+     * flags, with a precomputed prefilter (see {@link RuleBundle}).
+     */
+    ReplacePatternRule(Pattern pattern, int flags, String replacement, PatternPrefilter prefilter) {
         this._pattern = pattern;
+        this._flags = flags;
         this._replacement = replacement;
+        this._prefilter = prefilter;
+        this._matchers = new MatcherPool(pattern);
+        int groupCount = pattern.matcher("").groupCount();
+        List<String> texts = new ArrayList<>();
+        List<Integer> groups = new ArrayList<>();
+        if (parseReplacement(replacement, groupCount, texts, groups)) {
+            this._texts = texts.toArray(new String[0]);
+            this._groups = new int[groups.size()];
+            for (int i = 0 ; i < _groups.length ; i++) _groups[i] = groups.get(i);
+        } else {
+            this._texts = null;
+            this._groups = null;
+        }
+        this._linear = _texts == null ? null : LinearPattern.select(pattern);
+    }
+
+    // Returns the flags pattern has been compiled with, or -1 if they cannot
+    // be told apart from the inline flags of the expression, which
+    // Pattern.flags() also returns on recent java versions
+    private static int compileFlags(Pattern pattern) {
+        int syntax = pattern.flags() & (Pattern.COMMENTS | Pattern.LITERAL);
+        try {
+            int inline = Pattern.compile(pattern.pattern(), syntax).flags() & ~syntax;
+            return inline == 0 ? pattern.flags() : -1;
+        } catch(PatternSyntaxException e) {
+            return -1;
+        }
+    }
+
+    // Parses replacement as Matcher.appendReplacement does : a backslash
+    // escapes the following character, and $n refers to the longest group
+    // number not greater than groupCount.
+    // Returns false for named groups, missing groups and invalid replacements.
+    private static boolean parseReplacement(String replacement, int groupCount,
+                                            List<String> texts, List<Integer> groups) {
+        StringBuilder sb = new StringBuilder();
+        int len = replacement.length();
+        for (int i = 0 ; i < len ; i++) {
+            char c = replacement.charAt(i);
+            if (c == '\\') {
+                if (++i == len) return false;
+                sb.append(replacement.charAt(i));
+            }
+            else if (c == '$') {
+                if (++i == len) return false;
+                int ref = replacement.charAt(i) - '0';
+                if (ref < 0 || ref > 9 || ref > groupCount) return false;
+                while (i + 1 < len) {
+                    int digit = replacement.charAt(i + 1) - '0';
+                    if (digit < 0 || digit > 9 || ref * 10 + digit > groupCount) break;
+                    ref = ref * 10 + digit;
+                    i++;
+                }
+                texts.add(sb.toString());
+                groups.add(ref);
+                sb.setLength(0);
+            }
+            else sb.append(c);
+        }
+        texts.add(sb.toString());
+        return true;
     }
 
    /**
     * Transforms a String into another String.
     * @param s the String to transform
     * @param context a context object or null if no context information is available
-    * @return the transformed String
+    * @return the transformed String, or s itself if the pattern does not match
     */
     public String transform(String s, Object context) throws TransformationException {
+        if (s == null) return null;
+        if (_prefilter != null && !_prefilter.mayMatch(s)) return s;
+        if (_linear != null && _linear.accepts(s)) return linearTransform(s);
         try {
-            return s == null ? null:_pattern.matcher(s).replaceAll(_replacement);
+            Matcher m = _matchers.matcher(0, s);
+            if (!m.find()) return s;
+            if (_texts == null) return m.replaceAll(_replacement);
+            StringBuilder sb = new StringBuilder(s.length() + 16);
+            int last = 0;
+            do {
+                sb.append(s, last, m.start()).append(_texts[0]);
+                for (int i = 0 ; i < _groups.length ; i++) {
+                    int start = m.start(_groups[i]);
+                    if (start >= 0) sb.append(s, start, m.end(_groups[i]));
+                    sb.append(_texts[i + 1]);
+                }
+                last = m.end();
+            } while (m.find());
+            return sb.append(s, last, s.length()).toString();
         } catch(IndexOutOfBoundsException e) {
             throw new TransformationException(
                 "Exception using pattern " + _pattern.toString() +
@@ -61,6 +198,57 @@ public class ReplacePatternRule extends AbstractRule {
         }
     }
 
+    // Same as transform, using the linear-time engine
+    private String linearTransform(String s) {
+        int[] groups = new int[2 * (_linear.groupCount() + 1)];
+        StringBuilder sb = null;
+        int last = 0;
+        int from = 0;
+        while (from <= s.length() && _linear.find(s, from, groups)) {
+            if (sb == null) sb = new StringBuilder(s.length() + 16);
+            sb.append(s, last, groups[0]).append(_texts[0]);
+            for (int i = 0 ; i < _groups.length ; i++) {
+                int start = groups[2 * _groups[i]];
+                if (start >= 0) sb.append(s, start, groups[2 * _groups[i] + 1]);
+                sb.append(_texts[i + 1]);
+            }
+            last = groups[1];
+            // after an empty match, the search restarts at the next index
+            from = groups[1] == groups[0] ? groups[1] + 1 : groups[1];
+        }
+        return sb == null ? s : sb.append(s, last, s.length()).toString();
+    }
+
+    /**
+     * Returns the regular expression Pattern of this rule.
+     */
+    public Pattern getPattern() {
+        return _pattern;
+    }
+
+    /**
+     * Returns the flags passed to {@link Pattern#compile(String, int)}, or -1
+     * if the rule has been created from a Pattern whose flags cannot be told
+     * apart from the inline flags of its expression (as in a(?i)b).
+     */
+    public int getFlags() {
+        return _flags;
+    }
+
+    /**
+     * Returns the prefilter of this rule, or null.
+     */
+    PatternPrefilter getPrefilter() {
+        return _prefilter;
+    }
+
+    /**
+     * Returns the replacement string of this rule.
+     */
+    public String getReplacement() {
+        return _replacement;
+    }
+
     /**
      * String representation of this ReplacePatternRule.
      */
@@ -13,7 +13,6 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
 /**
@@ -133,7 +132,7 @@ public class ReplacePatternRuleSet extends RuleSet {
                         if (tokens[1].startsWith("\"") && tokens[1].endsWith("\"")) {
                             tokens[1] = tokens[1].substring(1,tokens[1].length()-1);
                         }
-                        ruleList.add(new ReplacePatternRule(Pattern.compile(tokens[0]), tokens[1]));
+                        ruleList.add(new ReplacePatternRule(tokens[0], tokens[1]));
                     } catch(PatternSyntaxException pse) {
                         pse.printStackTrace();
                     }
@@ -150,4 +149,41 @@ public class ReplacePatternRuleSet extends RuleSet {
         }
     }
 
+    /**
+     * Returns a ReplacePatternRuleSet giving exactly the same results as
+     * this one, where consecutive rules based on literal strings or simple
+     * character classes are fused into {@link LiteralReplaceRuleGroup}s
+     * applied in a single pass. Other rules are still applied one after
+     * the other with java.util.regex.
+     * A RuleSet with a StopCondition is returned as is, as the condition
+     * must be checked after each rule.
+     */
+    public ReplacePatternRuleSet compile() {
+        if (stopCondition != null) return this;
+        List<Rule> compiled = new ArrayList<>();
+        LiteralReplaceRuleGroup group = new LiteralReplaceRuleGroup();
+        for (Rule rule : rules) {
+            if (rule instanceof ReplacePatternRule &&
+                    LiteralReplaceRuleGroup.isLiteral((ReplacePatternRule)rule)) {
+                if (group.add((ReplacePatternRule)rule)) continue;
+                addGroup(compiled, group);
+                group = new LiteralReplaceRuleGroup();
+                group.add((ReplacePatternRule)rule);
+            } else {
+                addGroup(compiled, group);
+                group = new LiteralReplaceRuleGroup();
+                compiled.add(rule);
+            }
+        }
+        addGroup(compiled, group);
+        return new ReplacePatternRuleSet(null, compiled.toArray(new Rule[0]));
+    }
+
+    // Adds a group to a rule list (or its single rule, a group of one
+    // rule bringing nothing)
+    private static void addGroup(List<Rule> list, LiteralReplaceRuleGroup group) {
+        if (group.size() == 1) list.add(group.getRules()[0]);
+        else if (group.size() > 1) list.add(group);
+    }
+
 }
\ No newline at end of file
@@ -4,13 +4,20 @@
 
 package fr.michaelm.util.text;
 
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 /**
  * Interface defining a method to transform a String into another String.
  *
  * @author Micha&euml;l Michaud
- * @version 0.1 (2011-05-01)
+ * @version 0.2 (2026-10-19)
  */
 // History
+// 0.2 (2026-10-19) add batch and stream transformations
 // 0.1 (2011-05-01)
 public interface Rule {
 
@@ -30,4 +37,96 @@ public interface Rule {
     */
     String transform(String s) throws TransformationException;
 
-}
\ No newline at end of file
+
+   /**
+    * Transforms each String of in, and writes the results in out, at the
+    * same index (in and out may be the same array).
+    * @param in the Strings to transform
+    * @param out the array receiving the transformed Strings
+    */
+    default void transformAll(String[] in, String[] out) throws TransformationException {
+        if (out.length < in.length) {
+            throw new IllegalArgumentException("Output array is too small : " + out.length + " < " + in.length);
+        }
+        transformAll(in, 0, out, 0, in.length);
+    }
+
+
+   /**
+    * Transforms length Strings of in, starting at inPos, and writes the
+    * results in out, starting at outPos. in and out may be the same array
+    * if inPos equals outPos.
+    * <p>Rules made of several rules override this method to apply each
+    * rule to the whole batch before applying the next one.</p>
+    * @param in the Strings to transform
+    * @param inPos the index of the first String to transform
+    * @param out the array receiving the transformed Strings
+    * @param outPos the index of the first transformed String in out
+    * @param length the number of Strings to transform
+    */
+    default void transformAll(String[] in, int inPos, String[] out, int outPos, int length)
+                                                throws TransformationException {
+        for (int i = 0 ; i < length ; i++) {
+            out[outPos + i] = transform(in[inPos + i]);
+        }
+    }
+
+
+   /**
+    * Same as {@link #transformAll(String[], String[])}, but the Strings are
+    * split into blocks transformed in parallel in the common ForkJoinPool.
+    * The rule must be thread-safe.
+    * @param in the Strings to transform
+    * @param out the array receiving the transformed Strings
+    */
+    default void parallelTransformAll(String[] in, String[] out) throws TransformationException {
+        if (out.length < in.length) {
+            throw new IllegalArgumentException("Output array is too small : " + out.length + " < " + in.length);
+        }
+        // blocks are large enough to amortize the task and small enough to
+        // stay in the cache while each rule of a RuleSet is applied
+        final int block = 1024;
+        final AtomicReference<TransformationException> error = new AtomicReference<>();
+        IntStream.range(0, (in.length + block - 1) / block).parallel().forEach(b -> {
+            if (error.get() != null) return;
+            int from = b * block;
+            try {
+                transformAll(in, from, out, from, Math.min(block, in.length - from));
+            } catch(TransformationException e) {
+                error.compareAndSet(null, e);
+            }
+        });
+        if (error.get() != null) throw error.get();
+    }
+
+
+   /**
+    * Returns a Stream of the transformed Strings of strings. The Stream is
+    * lazy and keeps the characteristics of strings (a parallel Stream is
+    * transformed in parallel, and the rule must then be thread-safe).
+    * A TransformationException is thrown as an
+    * {@link UncheckedTransformationException} by the terminal operation.
+    * @param strings the Strings to transform
+    */
+    default Stream<String> transformAll(Stream<String> strings) {
+        return strings.map(s -> {
+            try {
+                return transform(s);
+            } catch(TransformationException e) {
+                throw new UncheckedTransformationException(e);
+            }
+        });
+    }
+
+
+   /**
+    * Returns a Spliterator over the transformed Strings of strings, which
+    * can be split like strings.
+    * @param strings the Strings to transform
+    * @see #transformAll(Stream)
+    */
+    default Spliterator<String> transformAll(Spliterator<String> strings) {
+        return transformAll(StreamSupport.stream(strings, false)).spliterator();
+    }
+
+}
@@ -0,0 +1,380 @@
+/*
+ * (C) 2026 michael.michaud@free.fr
+ */
+
+package fr.michaelm.util.text;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * A binary bundle of resolved rules, written at build time from a loaded
+ * {@link RuleRegistry} and loaded at startup without parsing rule files.
+ * <p>The bundle contains an index of the rule names, followed by the
+ * encoded rules : rule sets with their stop condition, pattern sources and
+ * flags, replacement strings and precomputed prefilters. References between
+ * rules are stored by name. The file is memory-mapped and each rule is
+ * decoded (and its patterns compiled) the first time it is used.</p>
+ * <p>Supported rules are the pre-defined rules of the RuleRegistry,
+ * {@link ReplacePatternRule}s, {@link LiteralReplaceRuleGroup}s,
+ * {@link RuleSet}s (with no StopCondition or a
+ * {@link RuleSet.MaxLengthCondition}) and {@link CachingRule}s.</p>
+ * <p>A bundle can be built with
+ * <code>java fr.michaelm.util.text.RuleBundle rule_dir bundle_file</code></p>
+ *
+ * @author Micha&euml;l Michaud
+ * @version 0.1 (2026-10-19)
+ */
+public final class RuleBundle {
+
+    private static final int MAGIC   = 0x52554C42; // RULB
+    private static final int VERSION = 1;
+
+    private static final byte REFERENCE     = 0;
+    private static final byte BUILT_IN      = 1;
+    private static final byte PATTERN       = 2;
+    private static final byte LITERAL_GROUP = 3;
+    private static final byte RULE_SET      = 4;
+    private static final byte CACHE         = 5;
+
+    private static final byte RULE_SET_PLAIN   = 0;
+    private static final byte RULE_SET_PATTERN = 1;
+    private static final byte RULE_SET_NAMED   = 2;
+
+    private static final byte NO_PREFILTER    = 0;
+    private static final byte LITERAL_PREFILTER = 1;
+    private static final byte CHARS_PREFILTER = 2;
+
+    private final ByteBuffer buffer;
+
+    // rule name -> offset of the encoded rule
+    private final Map<String,Integer> index = new LinkedHashMap<>();
+
+    private final Map<String,BundleRule> rules = new LinkedHashMap<>();
+
+    private RuleBundle(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        ByteBuffer in = buffer.duplicate();
+        if (in.getInt() != MAGIC) throw new IOException("Not a rule bundle");
+        int version = in.getInt();
+        if (version != VERSION) throw new IOException("Unsupported rule bundle version " + version);
+        int count = in.getInt();
+        for (int i = 0 ; i < count ; i++) {
+            String name = readString(in);
+            index.put(name, in.getInt());
+        }
+        for (String name : index.keySet()) rules.put(name, new BundleRule(name));
+    }
+
+    /**
+     * Opens a bundle file, mapped in memory.
+     */
+    public static RuleBundle open(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            return new RuleBundle(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Opens a bundle contained in a buffer (for example read from a
+     * classpath resource).
+     */
+    public static RuleBundle open(ByteBuffer buffer) throws IOException {
+        return new RuleBundle(buffer.duplicate());
+    }
+
+    /**
+     * Returns the names of the rules of this bundle.
+     */
+    public String[] getNames() {
+        return index.keySet().toArray(new String[0]);
+    }
+
+    /**
+     * Returns the rule with key name, decoded when it is used for the first
+     * time, or null if the bundle has no rule with this name.
+     */
+    public Rule getRule(String name) {
+        return rules.get(name);
+    }
+
+    /**
+     * A rule of the bundle, decoded on its first use.
+     */
+    private final class BundleRule extends AbstractRule {
+
+        private final String name;
+
+        private volatile Rule rule;
+
+        private BundleRule(String name) {
+            this.name = name;
+        }
+
+        private Rule getDecodedRule() {
+            Rule decoded = rule;
+            if (decoded == null) {
+                synchronized (this) {
+                    decoded = rule;
+                    if (decoded == null) {
+                        ByteBuffer in = buffer.duplicate();
+                        in.position(index.get(name));
+                        rule = decoded = decode(in);
+                    }
+                }
+            }
+            return decoded;
+        }
+
+        public String transform(String s, Object context) throws TransformationException {
+            return getDecodedRule().transform(s, context);
+        }
+
+        public String toString() {
+            return rule == null ? name + " (not loaded)" : rule.toString();
+        }
+    }
+
+    private Rule decode(ByteBuffer in) {
+        byte type = in.get();
+        switch (type) {
+            case REFERENCE : {
+                String name = readString(in);
+                Rule rule = rules.get(name);
+                if (rule != null) return rule;
+                try {
+                    return RuleRegistry.getRule(name);
+                } catch(RuleNotFoundException e) {
+                    throw new IllegalStateException("Rule " + name + " referenced by the bundle is not available");
+                }
+            }
+            case BUILT_IN :
+                return RuleRegistry.getBuiltInRule(readString(in));
+            case PATTERN :
+                return decodePatternRule(in);
+            case LITERAL_GROUP : {
+                int count = in.getInt();
+                LiteralReplaceRuleGroup group = new LiteralReplaceRuleGroup();
+                for (int i = 0 ; i < count ; i++) {
+                    in.get(); // PATTERN
+                    group.add(decodePatternRule(in));
+                }
+                return group;
+            }
+            case RULE_SET : {
+                byte kind = in.get();
+                int maxLength = in.getInt();
+                RuleSet.StopCondition stopCondition =
+                    maxLength < 0 ? null : new RuleSet.MaxLengthCondition(maxLength);
+                Rule[] members = new Rule[in.getInt()];
+                for (int i = 0 ; i < members.length ; i++) members[i] = decode(in);
+                if (kind == RULE_SET_PATTERN) return new ReplacePatternRuleSet(stopCondition, members);
+                RuleSet ruleSet;
+                try {
+                    ruleSet = kind == RULE_SET_NAMED ? new NamedRuleSet() : new RuleSet();
+                } catch(RuleNotFoundException e) {
+                    throw new IllegalStateException(e);
+                }
+                ruleSet.rules = members;
+                ruleSet.stopCondition = stopCondition;
+                return ruleSet;
+            }
+            case CACHE : {
+                int maxSize = in.getInt();
+                return new CachingRule(decode(in), maxSize);
+            }
+            default :
+                throw new IllegalStateException("Unknown rule type " + type + " in bundle");
+        }
+    }
+
+    private static ReplacePatternRule decodePatternRule(ByteBuffer in) {
+        String pattern = readString(in);
+        int flags = in.getInt();
+        String replacement = readString(in);
+        PatternPrefilter prefilter = null;
+        byte prefilterType = in.get();
+        if (prefilterType == LITERAL_PREFILTER) {
+            prefilter = PatternPrefilter.ofLiteral(readString(in));
+        }
+        else if (prefilterType == CHARS_PREFILTER) {
+            long[] words = new long[in.getInt()];
+            for (int i = 0 ; i < words.length ; i++) words[i] = in.getLong();
+            prefilter = PatternPrefilter.ofFirstChars(BitSet.valueOf(words));
+        }
+        return new ReplacePatternRule(Pattern.compile(pattern, flags), flags, replacement, prefilter);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes rules in a bundle file.
+     * @param rules the rules to write, by name
+     * @param file the bundle file
+     * @throws IllegalArgumentException if a rule cannot be written in a bundle
+     */
+    public static void write(Map<String,Rule> rules, File file) throws IOException {
+        try (OutputStream os = new FileOutputStream(file)) {
+            write(rules, os);
+        }
+    }
+
+    /**
+     * Writes rules in a bundle.
+     * @param rules the rules to write, by name
+     * @param os the stream to write the bundle to
+     * @throws IllegalArgumentException if a rule cannot be written in a bundle
+     */
+    public static void write(Map<String,Rule> rules, OutputStream os) throws IOException {
+        // names of the rules, to write references
+        Map<Rule,String> names = new IdentityHashMap<>();
+        for (Map.Entry<String,Rule> entry : rules.entrySet()) {
+            Rule rule = unwrap(entry.getValue());
+            if (!names.containsKey(rule) || entry.getKey().length() > 0) names.put(rule, entry.getKey());
+        }
+        List<String> keys = new ArrayList<>(rules.keySet());
+        List<byte[]> bodies = new ArrayList<>();
+        int headerSize = 12;
+        for (String key : keys) {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            writeRule(new DataOutputStream(body), unwrap(rules.get(key)), names, true);
+            bodies.add(body.toByteArray());
+            headerSize += 8 + key.getBytes(StandardCharsets.UTF_8).length;
+        }
+        DataOutputStream out = new DataOutputStream(os);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(keys.size());
+        int offset = headerSize;
+        for (int i = 0 ; i < keys.size() ; i++) {
+            writeString(out, keys.get(i));
+            out.writeInt(offset);
+            offset += bodies.get(i).length;
+        }
+        for (byte[] body : bodies) out.write(body);
+        out.flush();
+    }
+
+    private static Rule unwrap(Rule rule) {
+        return rule instanceof BundleRule ? ((BundleRule)rule).getDecodedRule() : rule;
+    }
+
+    private static void writeRule(DataOutputStream out, Rule rule, Map<Rule,String> names,
+                                  boolean top) throws IOException {
+        rule = unwrap(rule);
+        String builtIn = RuleRegistry.getBuiltInName(rule);
+        if (builtIn != null) {
+            out.writeByte(BUILT_IN);
+            writeString(out, builtIn);
+        }
+        else if (!top && names.containsKey(rule)) {
+            out.writeByte(REFERENCE);
+            writeString(out, names.get(rule));
+        }
+        else if (rule instanceof ReplacePatternRule) {
+            writePatternRule(out, (ReplacePatternRule)rule);
+        }
+        else if (rule instanceof LiteralReplaceRuleGroup) {
+            ReplacePatternRule[] groupRules = ((LiteralReplaceRuleGroup)rule).getRules();
+            out.writeByte(LITERAL_GROUP);
+            out.writeInt(groupRules.length);
+            for (ReplacePatternRule groupRule : groupRules) writePatternRule(out, groupRule);
+        }
+        else if (rule instanceof RuleSet) {
+            RuleSet ruleSet = (RuleSet)rule;
+            Class<?> c = ruleSet.getClass();
+            if (c != RuleSet.class && c != ReplacePatternRuleSet.class && c != NamedRuleSet.class) {
+                throw new IllegalArgumentException("Rule " + rule + " cannot be written in a bundle");
+            }
+            int maxLength = -1;
+            if (ruleSet.stopCondition instanceof RuleSet.MaxLengthCondition) {
+                maxLength = ((RuleSet.MaxLengthCondition)ruleSet.stopCondition).len;
+            }
+            else if (ruleSet.stopCondition != null) {
+                throw new IllegalArgumentException("StopCondition of " + rule + " cannot be written in a bundle");
+            }
+            out.writeByte(RULE_SET);
+            out.writeByte(c == ReplacePatternRuleSet.class ? RULE_SET_PATTERN :
+                          c == NamedRuleSet.class ? RULE_SET_NAMED : RULE_SET_PLAIN);
+            out.writeInt(maxLength);
+            out.writeInt(ruleSet.rules.length);
+            for (Rule member : ruleSet.rules) writeRule(out, member, names, false);
+        }
+        else if (rule instanceof CachingRule) {
+            out.writeByte(CACHE);
+            out.writeInt(((CachingRule)rule).getMaxSize());
+            writeRule(out, ((CachingRule)rule).getRule(), names, true);
+        }
+        else {
+            throw new IllegalArgumentException("Rule " + rule + " cannot be written in a bundle");
+        }
+    }
+
+    private static void writePatternRule(DataOutputStream out, ReplacePatternRule rule) throws IOException {
+        // Pattern.flags() may include inline flags, which must not apply to
+        // the whole expression when the pattern is compiled again
+        if (rule.getFlags() < 0) {
+            throw new IllegalArgumentException("Rule " + rule +
+                " cannot be written in a bundle : the flags of its pattern are unknown");
+        }
+        out.writeByte(PATTERN);
+        writeString(out, rule.getPattern().pattern());
+        out.writeInt(rule.getFlags());
+        writeString(out, rule.getReplacement());
+        PatternPrefilter prefilter = rule.getPrefilter();
+        if (prefilter == null) {
+            out.writeByte(NO_PREFILTER);
+        }
+        else if (prefilter.getLiteral() != null) {
+            out.writeByte(LITERAL_PREFILTER);
+            writeString(out, prefilter.getLiteral());
+        }
+        else {
+            long[] words = prefilter.getFirstChars().toLongArray();
+            out.writeByte(CHARS_PREFILTER);
+            out.writeInt(words.length);
+            for (long word : words) out.writeLong(word);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Builds a bundle from a rule directory.
+     * Usage : java fr.michaelm.util.text.RuleBundle rule_dir bundle_file
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.out.println("Usage : java fr.michaelm.util.text.RuleBundle rule_dir bundle_file");
+            return;
+        }
+        RuleRegistry.loadRules(args[0]);
+        RuleRegistry.writeBundle(new File(args[1]));
+        System.out.println("Rule bundle " + args[1] + " : " + RuleRegistry.getRules().length + " rule(s)");
+    }
+
+}
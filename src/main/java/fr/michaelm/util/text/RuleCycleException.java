@@ -0,0 +1,39 @@
+/*
+ * (C) 2026 michael.michaud@free.fr
+ */
+
+package fr.michaelm.util.text;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Exception thrown when a rule depends on itself, directly or through other
+ * named rules (ex. a.nrs uses b.nrs which uses a.nrs).
+ *
+ * @author Micha&euml;l Michaud
+ * @version 0.1 (2026-10-19)
+ */
+public class RuleCycleException extends RuleNotFoundException {
+
+    private final List<String> cycle;
+
+    /**
+     * @param cycle the names of the rules of the cycle, the first one being
+     * repeated at the end
+     */
+    public RuleCycleException(List<String> cycle) {
+        super(cycle.get(0), "cyclic rule dependency " + String.join(" -> ", cycle), null);
+        this.cycle = Collections.unmodifiableList(new ArrayList<>(cycle));
+    }
+
+    /**
+     * Returns the names of the rules of the cycle, the first one being
+     * repeated at the end.
+     */
+    public List<String> getCycle() {
+        return cycle;
+    }
+
+}
@@ -12,10 +12,21 @@ package fr.michaelm.util.text;
  */
 // History
 // 0.1 (2011-05-01)
+// 0.2 (2026-10-19) add a constructor giving the reason why the rule cannot be loaded
 public class RuleNotFoundException extends Exception {
 
     public RuleNotFoundException(String message) {
         super("\"" + message + "\"");
     }
 
+    /**
+     * Exception thrown when the rule name is known but cannot be loaded.
+     * @param name the name of the rule
+     * @param reason the reason why the rule cannot be loaded
+     * @param cause the exception thrown while loading the rule, or null
+     */
+    public RuleNotFoundException(String name, String reason, Throwable cause) {
+        super("\"" + name + "\" : " + reason, cause);
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,181 @@
+/*
+ * (C) 2026 michael.michaud@free.fr
+ */
+
+package fr.michaelm.util.text;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Per-rule statistics collected by a {@link RuleSet} in profiling mode (see
+ * {@link RuleSet#setProfiling(boolean)}) : number of invocations, number of
+ * invocations changing the String, cumulative time and allocated bytes.
+ * <p>Allocated bytes are measured with the thread allocation counter of the
+ * JVM when it is available (HotSpot), and are -1 otherwise.</p>
+ * <p>The profile can be printed with {@link #getReport()} or registered as
+ * an MBean with {@link #register(String)}.</p>
+ *
+ * @author Micha&euml;l Michaud
+ * @version 0.1 (2026-10-19)
+ */
+public class RuleProfile implements RuleProfileMBean {
+
+    private static final com.sun.management.ThreadMXBean ALLOCATION_BEAN = allocationBean();
+
+    private final Rule[] rules;
+
+    private final AtomicLongArray invocations;
+
+    private final AtomicLongArray matches;
+
+    private final AtomicLongArray nanos;
+
+    private final AtomicLongArray bytes;
+
+    RuleProfile(Rule[] rules) {
+        this.rules = rules.clone();
+        this.invocations = new AtomicLongArray(rules.length);
+        this.matches = new AtomicLongArray(rules.length);
+        this.nanos = new AtomicLongArray(rules.length);
+        this.bytes = new AtomicLongArray(rules.length);
+    }
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        try {
+            ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean)bean;
+                if (sunBean.isThreadAllocatedMemorySupported() &&
+                    sunBean.isThreadAllocatedMemoryEnabled()) return sunBean;
+            }
+        } catch(LinkageError e) {
+            // com.sun.management is not available on this JVM
+        }
+        return null;
+    }
+
+    /**
+     * Applies rule i of the profiled RuleSet to s, recording its statistics.
+     */
+    String transform(int i, String s, Object context) throws TransformationException {
+        long threadId = 0;
+        long allocated = 0;
+        if (ALLOCATION_BEAN != null) {
+            threadId = Thread.currentThread().getId();
+            allocated = ALLOCATION_BEAN.getThreadAllocatedBytes(threadId);
+        }
+        long start = System.nanoTime();
+        String result = rules[i].transform(s, context);
+        nanos.addAndGet(i, System.nanoTime() - start);
+        if (ALLOCATION_BEAN != null) {
+            bytes.addAndGet(i, ALLOCATION_BEAN.getThreadAllocatedBytes(threadId) - allocated);
+        }
+        invocations.incrementAndGet(i);
+        if (result != s && (result == null || !result.equals(s))) matches.incrementAndGet(i);
+        return result;
+    }
+
+    /** Returns true if this profile has been created for rules. */
+    boolean isProfileOf(Rule[] rules) {
+        return Arrays.equals(this.rules, rules);
+    }
+
+    /** Returns the profiled rules. */
+    public Rule[] getRules() {
+        return rules.clone();
+    }
+
+    public int getRuleCount() {
+        return rules.length;
+    }
+
+    public long[] getInvocations() {
+        return toArray(invocations);
+    }
+
+    public long[] getMatches() {
+        return toArray(matches);
+    }
+
+    public long[] getNanos() {
+        return toArray(nanos);
+    }
+
+    public long[] getAllocatedBytes() {
+        long[] array = toArray(bytes);
+        if (ALLOCATION_BEAN == null) Arrays.fill(array, -1L);
+        return array;
+    }
+
+    public long getTotalNanos() {
+        long total = 0;
+        for (int i = 0 ; i < rules.length ; i++) total += nanos.get(i);
+        return total;
+    }
+
+    public void reset() {
+        for (int i = 0 ; i < rules.length ; i++) {
+            invocations.set(i, 0);
+            matches.set(i, 0);
+            nanos.set(i, 0);
+            bytes.set(i, 0);
+        }
+    }
+
+    public String getReport() {
+        final long[] time = getNanos();
+        long[] count = getInvocations();
+        long[] match = getMatches();
+        long[] allocated = getAllocatedBytes();
+        long total = Math.max(1, getTotalNanos());
+        Integer[] order = new Integer[rules.length];
+        for (int i = 0 ; i < order.length ; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparingLong((Integer i) -> time[i]).reversed());
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%5s %12s %12s %12s %6s %14s  %s%n",
+            "rule", "invocations", "matches", "micros", "%", "bytes", "description"));
+        for (int i : order) {
+            sb.append(String.format("%5d %12d %12d %12d %6.2f %14d  %s%n",
+                i, count[i], match[i], time[i] / 1000, 100.0 * time[i] / total, allocated[i],
+                String.valueOf(rules[i]).replace('\n', ' ')));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Registers this profile in the platform MBean server, as
+     * fr.michaelm.util.text:type=RuleProfile,name=<i>name</i>.
+     * An MBean already registered with the same name is replaced.
+     * @return the ObjectName of the registered MBean
+     */
+    public ObjectName register(String name) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName("fr.michaelm.util.text:type=RuleProfile,name=" +
+                                               ObjectName.quote(name));
+        if (server.isRegistered(objectName)) server.unregisterMBean(objectName);
+        server.registerMBean(this, objectName);
+        return objectName;
+    }
+
+    /**
+     * String representation of this RuleProfile.
+     */
+    public String toString() {
+        return getReport();
+    }
+
+    private static long[] toArray(AtomicLongArray atomicArray) {
+        long[] array = new long[atomicArray.length()];
+        for (int i = 0 ; i < array.length ; i++) array[i] = atomicArray.get(i);
+        return array;
+    }
+
+}
@@ -0,0 +1,39 @@
+/*
+ * (C) 2026 michael.michaud@free.fr
+ */
+
+package fr.michaelm.util.text;
+
+/**
+ * JMX management interface of a {@link RuleProfile}.
+ *
+ * @author Micha&euml;l Michaud
+ * @version 0.1 (2026-10-19)
+ */
+public interface RuleProfileMBean {
+
+    /** Returns the number of profiled rules. */
+    int getRuleCount();
+
+    /** Returns the number of invocations of each rule. */
+    long[] getInvocations();
+
+    /** Returns the number of invocations of each rule which changed the String. */
+    long[] getMatches();
+
+    /** Returns the cumulative time spent in each rule, in nanoseconds. */
+    long[] getNanos();
+
+    /** Returns the bytes allocated by each rule, or -1 values if not supported. */
+    long[] getAllocatedBytes();
+
+    /** Returns the total time spent in the rules, in nanoseconds. */
+    long getTotalNanos();
+
+    /** Returns a text report, rules sorted by decreasing cumulative time. */
+    String getReport();
+
+    /** Resets all the counters. */
+    void reset();
+
+}
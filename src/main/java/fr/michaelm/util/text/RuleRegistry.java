@@ -9,8 +9,22 @@ import fr.michaelm.util.StringUtil;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -23,6 +37,9 @@ import java.util.regex.PatternSyntaxException;
  * @version 0.3 (2011-04-25)
  */
 // History
+// 0.4 (2026-10-19) reuse per-thread matchers in built-in rules, optional caches,
+//                  binary rule bundles, lazy loading of file-based rules,
+//                  copy-on-write registry and hot reload of rule files
 // 0.3 (2011-04-25) add javadoc
 // 0.2 (2011-03-26) keep file extension for file-based rules 
 // 0.1 (2009-09-27)
@@ -50,14 +67,56 @@ public final class RuleRegistry {
     private static final Pattern SAINT = Pattern.compile("(?i)\b(S)(AINT)(E?)\b");
 
     /**
-     * HashMap containing predefined rules or rules added by the user.
-     * Each rule is identified by a name. Different rules cannot have the same name.
-     * By convention, pre-defined rules have an uppercase name,
-     * while user defined file-based rules take the name of the file. 
+     * Per-thread matchers for ARTICLE_AFTER, ARTICLE_BEFORE and SAINT.
      */
-    private static final Map<String,Rule> REGISTRY = new HashMap<>();
+    private static final MatcherPool MATCHERS = new MatcherPool(ARTICLE_AFTER, ARTICLE_BEFORE, SAINT);
+    private static final int ARTICLE_AFTER_MATCHER  = 0;
+    private static final int ARTICLE_BEFORE_MATCHER = 1;
+    private static final int SAINT_MATCHER          = 2;
 
-    // Some current rules
+    /**
+     * Current content of the registry : predefined rules or rules added by
+     * the user. Each rule is identified by a name. Different rules cannot
+     * have the same name. By convention, pre-defined rules have an uppercase
+     * name, while user defined file-based rules take the name of the file.
+     * A snapshot is never modified once published : writers copy it, modify
+     * the copy and replace it, so that readers never lock.
+     */
+    private static volatile Snapshot registry = new Snapshot();
+
+    /**
+     * Lock held by the writers (and while loading a file-based rule).
+     */
+    private static final Object LOCK = new Object();
+
+    /**
+     * Snapshot modified by the thread holding LOCK while loading rules, and
+     * published once all of them are loaded.
+     */
+    private static Snapshot pending;
+
+    /**
+     * Names of the rules being loaded, each one depending on the next one.
+     */
+    private static final List<String> LOADING = new ArrayList<>();
+
+    /**
+     * Names of the file-based rules depending on a rule (the NamedRuleSets
+     * which requested it while they were loaded).
+     */
+    private static final Map<String,Set<String>> DEPENDENTS = new HashMap<>();
+
+    /**
+     * Maximum size of the cache of the cached rules, used to cache a
+     * file-based rule again when it is reloaded.
+     */
+    private static final Map<String,Integer> CACHE_SIZES = new HashMap<>();
+
+    /**
+     * Thread reloading modified rule files, see {@link #watchRules(String)}.
+     */
+    private static RuleWatcher watcher;
+    
     public static final Rule NEUTRAL = new AbstractRule(){
         public String transform(String s, Object context) {return s;}
     };
@@ -98,18 +157,13 @@ public final class RuleRegistry {
         }
     };
     
-    public static final Rule REMOVE_INITIAL_ARTICLE = new AbstractRule(){
-        public String transform(String s, Object context) {
-            if (s==null) return null;
-            return ARTICLE_BEFORE.matcher(s).replaceAll("$2");
-        }
-    };
+    public static final Rule REMOVE_INITIAL_ARTICLE = new ReplacePatternRule(ARTICLE_BEFORE, "$2");
 
     /** Switch parenthesis content in front of the String*/
     public static final Rule MOVE_ARTICLE_BEFORE = new AbstractRule(){
         public String transform(String s, Object context) {
             if (s==null) return null;
-            Matcher m = ARTICLE_AFTER.matcher(s);
+            Matcher m = MATCHERS.matcher(ARTICLE_AFTER_MATCHER, s);
             if (m.matches()) {
                 String word = m.group(1);
                 String article = m.group(2);
@@ -123,7 +177,7 @@ public final class RuleRegistry {
     public static final Rule MOVE_ARTICLE_AFTER = new AbstractRule(){
         public String transform(String s, Object context) {
             if (s==null) return null;
-            Matcher m = ARTICLE_BEFORE.matcher(s);
+            Matcher m = MATCHERS.matcher(ARTICLE_BEFORE_MATCHER, s);
             if (m.matches()) {
                 String article = m.group(1).trim();
                 String word = m.group(2);
@@ -138,7 +192,7 @@ public final class RuleRegistry {
     public static final Rule ABBREVIATE_SAINT = new AbstractRule(){
         public String transform(String s, Object context) {
             if (s==null) return null;
-            Matcher m = SAINT.matcher(s);
+            Matcher m = MATCHERS.matcher(SAINT_MATCHER, s);
             if (m.matches()) {
                 return m.group(1) + m.group(2).charAt(3) + m.group(3);
             }
@@ -147,11 +201,54 @@ public final class RuleRegistry {
     };
 
 
+    /**
+     * Pre-defined rules, registered by {@link #loadRules(String)} and
+     * {@link #loadBundle(File)}.
+     */
+    private static final Map<String,Rule> BUILT_IN_RULES = new LinkedHashMap<>();
+    static {
+        BUILT_IN_RULES.put("", NEUTRAL);
+        BUILT_IN_RULES.put("NEUTRAL", NEUTRAL);
+        BUILT_IN_RULES.put("TO_LOWERCASE", TO_LOWERCASE);
+        BUILT_IN_RULES.put("TO_UPPERCASE", TO_UPPERCASE);
+        BUILT_IN_RULES.put("TO_ASCII", TO_ASCII);
+        BUILT_IN_RULES.put("TO_ASCII38", TO_ASCII38);
+        BUILT_IN_RULES.put("NORMALIZE_SPACES", NORMALIZE_SPACES);
+        BUILT_IN_RULES.put("REMOVE_PARENTHESES", REMOVE_PARENTHESES);
+        BUILT_IN_RULES.put("MOVE_ARTICLE_BEFORE", MOVE_ARTICLE_BEFORE);
+        BUILT_IN_RULES.put("MOVE_ARTICLE_BEHIND", MOVE_ARTICLE_AFTER);
+        BUILT_IN_RULES.put("REMOVE_ARTICLE", REMOVE_INITIAL_ARTICLE);
+        BUILT_IN_RULES.put("ABBREVIATE_SAINT", ABBREVIATE_SAINT);
+    }
+
+    /**
+     * Returns the name of a pre-defined rule, or null if rule is not a
+     * pre-defined rule.
+     */
+    static String getBuiltInName(Rule rule) {
+        for (Map.Entry<String,Rule> entry : BUILT_IN_RULES.entrySet()) {
+            if (entry.getValue() == rule && entry.getKey().length() > 0) return entry.getKey();
+        }
+        return null;
+    }
+
+    /**
+     * Returns the pre-defined rule registered with key "name", or null.
+     */
+    static Rule getBuiltInRule(String name) {
+        return BUILT_IN_RULES.get(name);
+    }
+
+
     /**
      * Remove all rules from the registry.
      */
     public static void clearRegistry() {
-        REGISTRY.clear();
+        synchronized (LOCK) {
+            DEPENDENTS.clear();
+            CACHE_SIZES.clear();
+            publish(new Snapshot());
+        }
     }
 
 
@@ -160,7 +257,21 @@ public final class RuleRegistry {
      * If the key name already exists, the corresponding rule is replaced.
      */
     public static void put(String name, Rule rule) {
-        REGISTRY.put(name, rule);
+        synchronized (LOCK) {
+            Snapshot snapshot = working();
+            snapshot.rules.put(name, rule);
+            snapshot.descriptors.remove(name);
+            CACHE_SIZES.remove(name);
+            publish(snapshot);
+        }
+    }
+
+    // Replaces the rule registered with key "name", which stays file-based
+    // if it was (called while holding LOCK)
+    private static void replace(String name, Rule rule) {
+        Snapshot snapshot = working();
+        snapshot.rules.put(name, rule);
+        publish(snapshot);
     }
 
 
@@ -168,17 +279,124 @@ public final class RuleRegistry {
      * Tests if the Registry already contains a rule called name.
      */
     public static boolean contains(String name) {
-        return REGISTRY.containsKey(name);
+        Snapshot snapshot = registry;
+        return snapshot.rules.containsKey(name) || snapshot.descriptors.containsKey(name);
+    }
+
+
+    /**
+     * Tests if the rule called name is already loaded (file-based rules are
+     * loaded the first time they are requested).
+     */
+    public static boolean isLoaded(String name) {
+        return registry.rules.containsKey(name);
     }
     
 
     /**
      * Gets the rule inserted with key "name".
+     * A file-based rule is loaded the first time it is requested, after the
+     * named rules it depends on.
+     * @throws RuleCycleException if the rule depends on itself
+     * @throws RuleNotFoundException if the rule does not exist or cannot be loaded
      */
     public static Rule getRule(String name) throws RuleNotFoundException {
-        Rule rule = REGISTRY.get(name);
-        if (rule != null) return REGISTRY.get(name);
-        else throw new RuleNotFoundException(name);
+        boolean writer = Thread.holdsLock(LOCK);
+        Rule rule = (writer && pending != null ? pending : registry).rules.get(name);
+        if (rule != null) {
+            if (writer) addDependent(name);
+            return rule;
+        }
+        synchronized (LOCK) {
+            Snapshot snapshot = working();
+            rule = snapshot.rules.get(name);
+            if (rule != null) {
+                addDependent(name);
+                return rule;
+            }
+            RuleDescriptor descriptor = snapshot.descriptors.get(name);
+            if (descriptor == null) throw new RuleNotFoundException(name);
+            int i = LOADING.indexOf(name);
+            if (i >= 0) {
+                List<String> cycle = new ArrayList<>(LOADING.subList(i, LOADING.size()));
+                cycle.add(name);
+                throw new RuleCycleException(cycle);
+            }
+            addDependent(name);
+            // rules requested while this one is loaded are added to the same
+            // snapshot, published once they are all loaded
+            boolean first = pending == null;
+            if (first) pending = snapshot;
+            LOADING.add(name);
+            try {
+                rule = descriptor.load();
+            } catch(IOException | RuleFormatException | PatternSyntaxException e) {
+                throw new RuleNotFoundException(name, "cannot be loaded from " + descriptor.file, e);
+            } finally {
+                LOADING.remove(LOADING.size() - 1);
+                if (first) pending = null;
+            }
+            Integer maxSize = CACHE_SIZES.get(name);
+            if (maxSize != null) rule = new CachingRule(rule, maxSize);
+            snapshot.rules.put(name, rule);
+            publish(snapshot);
+            return rule;
+        }
+    }
+
+    // Records that the rule being loaded depends on rule name
+    private static void addDependent(String name) {
+        if (LOADING.isEmpty()) return;
+        Set<String> dependents = DEPENDENTS.get(name);
+        if (dependents == null) DEPENDENTS.put(name, dependents = new HashSet<>());
+        dependents.add(LOADING.get(LOADING.size() - 1));
+    }
+
+    // Returns the snapshot to modify (called while holding LOCK)
+    private static Snapshot working() {
+        return pending != null ? pending : new Snapshot(registry);
+    }
+
+    // Makes snapshot visible to the readers, unless it is the pending
+    // snapshot, which is published at the end of the loading
+    private static void publish(Snapshot snapshot) {
+        if (snapshot != pending) registry = snapshot;
+    }
+
+
+    /**
+     * Replaces the rule registered with key "name" by a {@link CachingRule}
+     * keeping at most maxSize of its results. If the rule is already cached,
+     * its cache is replaced by a new one.
+     * Note that NamedRuleSets resolve their rules when they are created :
+     * the cache must be enabled before loading the NamedRuleSets using it.
+     * A file-based rule stays cached, with a new cache, when it is reloaded.
+     * @param name the name of the rule to cache
+     * @param maxSize the maximum number of cached results
+     * @return the CachingRule now registered with key "name"
+     */
+    public static CachingRule enableCache(String name, int maxSize) throws RuleNotFoundException {
+        synchronized (LOCK) {
+            Rule rule = getRule(name);
+            if (rule instanceof CachingRule) rule = ((CachingRule)rule).getRule();
+            CachingRule cachingRule = new CachingRule(rule, maxSize);
+            CACHE_SIZES.put(name, maxSize);
+            replace(name, cachingRule);
+            return cachingRule;
+        }
+    }
+
+
+    /**
+     * Replaces the CachingRule registered with key "name", if any, by the
+     * rule it decorates.
+     */
+    public static void disableCache(String name) throws RuleNotFoundException {
+        synchronized (LOCK) {
+            Rule rule = getRule(name);
+            CACHE_SIZES.remove(name);
+            if (rule instanceof CachingRule) replace(name, ((CachingRule)rule).getRule());
+        }
     }
 
 
@@ -186,7 +404,10 @@ public final class RuleRegistry {
      * Get the name of all the rules in this registry.
      */
     public static String[] getRules() {
-        return REGISTRY.keySet().toArray(new String[]{});
+        Snapshot snapshot = registry;
+        Set<String> names = new LinkedHashSet<>(snapshot.rules.keySet());
+        names.addAll(snapshot.descriptors.keySet());
+        return names.toArray(new String[]{});
     }
     
     
@@ -196,7 +417,7 @@ public final class RuleRegistry {
      * @param ruleName the name of the rule to be used
      */
      public static String transforms(String s, String ruleName) throws TransformationException {
-         return REGISTRY.get(ruleName).transform(s);
+         return lookup(ruleName).transform(s);
      }
      
      
@@ -208,53 +429,305 @@ public final class RuleRegistry {
       */
      public static String transforms(String s, String ruleName, Object context)
                                                 throws TransformationException {
-         return REGISTRY.get(ruleName).transform(s, context);
+         return lookup(ruleName).transform(s, context);
      }
 
+     private static Rule lookup(String ruleName) throws TransformationException {
+         try {
+             return getRule(ruleName);
+         } catch(RuleNotFoundException e) {
+             throw new TransformationException("Rule " + e.getMessage() + " is not available");
+         }
+     }
+
+    /**
+     * Loads default rules and the rules of a bundle written by
+     * {@link #writeBundle(File)}. Rules of the bundle are decoded the
+     * first time they are used.
+     * @param bundle the bundle file, mapped in memory
+     */
+    public static void loadBundle(File bundle) throws IOException {
+        RuleBundle ruleBundle = RuleBundle.open(bundle);
+        synchronized (LOCK) {
+            Snapshot snapshot = working();
+            snapshot.rules.putAll(BUILT_IN_RULES);
+            for (String name : ruleBundle.getNames()) {
+                if (!BUILT_IN_RULES.containsKey(name)) {
+                    snapshot.rules.put(name, ruleBundle.getRule(name));
+                    snapshot.descriptors.remove(name);
+                    CACHE_SIZES.remove(name);
+                }
+            }
+            publish(snapshot);
+        }
+    }
+
+
+    /**
+     * Writes all the rules of the registry in a binary bundle which can be
+     * loaded by {@link #loadBundle(File)}, without parsing rule files.
+     * @param bundle the bundle file to write
+     */
+    public static void writeBundle(File bundle) throws IOException {
+        // rules registered but not yet loaded are loaded first
+        for (String name : registry.descriptors.keySet()) {
+            try {
+                getRule(name);
+            } catch(RuleNotFoundException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+        RuleBundle.write(registry.rules, bundle);
+    }
+
+
     /**
-     * Loads default rules and file based rules contained in dir folder.
+     * Loads default rules and registers file based rules contained in dir
+     * folder (.prs files for {@link ReplacePatternRuleSet}s, .nrs files for
+     * {@link NamedRuleSet}s, and AFNOR.prs also registered as AFNOR, with a
+     * maximum length of 38 characters).
+     * File based rules are only loaded the first time they are requested.
      * @param dir the folder containing rules definition.
      */
     public static void loadRules(String dir) throws IOException,
                                                     RuleFormatException,
                                                     RuleNotFoundException,
                                                     PatternSyntaxException {
-        put("", NEUTRAL);
-        put("NEUTRAL", NEUTRAL);
-        put("TO_LOWERCASE", TO_LOWERCASE);
-        put("TO_UPPERCASE", TO_UPPERCASE);
-        put("TO_ASCII", TO_ASCII);
-        put("TO_ASCII38", TO_ASCII38);
-        put("NORMALIZE_SPACES", NORMALIZE_SPACES);
-        put("REMOVE_PARENTHESES", REMOVE_PARENTHESES);
-        put("MOVE_ARTICLE_BEFORE", MOVE_ARTICLE_BEFORE);
-        put("MOVE_ARTICLE_BEHIND", MOVE_ARTICLE_AFTER);
-        put("REMOVE_ARTICLE", REMOVE_INITIAL_ARTICLE);
-        put("ABBREVIATE_SAINT", ABBREVIATE_SAINT);
         File directory = new File (dir);
         if (!directory.isDirectory())
             throw new IllegalArgumentException(dir + " is not a valid directory");
+        File afnor = new File(directory, "AFNOR.prs");
+        if (!afnor.isFile()) throw new FileNotFoundException(afnor.getPath());
 
-        for (File f : directory.listFiles()) {
-            if (f.getName().endsWith("prs")) {
-                put(f.getName(), new ReplacePatternRuleSet(f.getPath()));
+        synchronized (LOCK) {
+            Snapshot snapshot = working();
+            snapshot.rules.putAll(BUILT_IN_RULES);
+            for (File f : directory.listFiles()) {
+                if (isRuleFile(f)) {
+                    snapshot.register(new RuleDescriptor(f.getName(), f, -1));
+                }
             }
+            snapshot.register(new RuleDescriptor("AFNOR", afnor, 38));
+            publish(snapshot);
         }
-        put("AFNOR", new ReplacePatternRuleSet(new File(directory, "AFNOR.prs").getPath(), new RuleSet.MaxLengthCondition(38)));
-        for (File f : directory.listFiles()) {
+    }
+
+    private static boolean isRuleFile(File f) {
+        return f.getName().endsWith("prs") || f.getName().endsWith("nrs");
+    }
+
+
+    /**
+     * Reloads the rules defined in files (or removes them if the files do
+     * not exist anymore), and the NamedRuleSets depending on them.
+     * Files which are not yet registered are registered.
+     * Rules which were loaded are loaded again, others will be loaded the
+     * first time they are requested. The new rules replace the old ones
+     * all at once : readers are not blocked, and keep the old rules if
+     * one of them cannot be loaded. Cached rules are cached again, with
+     * a new cache of the same size.
+     * @param files the modified rule files
+     * @return the names of the reloaded rules
+     * @throws RuleNotFoundException if a rule cannot be loaded
+     */
+    public static Set<String> reloadRules(Collection<File> files) throws RuleNotFoundException {
+        synchronized (LOCK) {
+            Snapshot snapshot = new Snapshot(registry);
+            Set<String> names = new LinkedHashSet<>();
+            for (File file : files) {
+                if (!isRuleFile(file)) continue;
+                boolean registered = false;
+                for (RuleDescriptor descriptor : new ArrayList<>(snapshot.descriptors.values())) {
+                    if (descriptor.file.getAbsoluteFile().equals(file.getAbsoluteFile())) {
+                        registered = true;
+                        names.add(descriptor.name);
+                        if (!file.exists()) {
+                            snapshot.descriptors.remove(descriptor.name);
+                            snapshot.rules.remove(descriptor.name);
+                        }
+                    }
+                }
+                if (!registered && file.isFile()) {
+                    snapshot.register(new RuleDescriptor(file.getName(), file, -1));
+                }
+            }
+            // add NamedRuleSets depending on modified rules
+            List<String> queue = new ArrayList<>(names);
+            for (int i = 0 ; i < queue.size() ; i++) {
+                Set<String> dependents = DEPENDENTS.get(queue.get(i));
+                if (dependents == null) continue;
+                for (String dependent : dependents) {
+                    if (names.add(dependent)) queue.add(dependent);
+                }
+            }
+            // loaded rules are unloaded, then loaded again (rules replaced
+            // by put are not file-based anymore and are kept)
+            Set<String> unloaded = new LinkedHashSet<>();
+            for (String name : names) {
+                if (snapshot.descriptors.containsKey(name) && snapshot.rules.containsKey(name)) {
+                    snapshot.rules.remove(name);
+                    unloaded.add(name);
+                }
+            }
+            Map<String,Set<String>> dependents = new HashMap<>(DEPENDENTS);
+            DEPENDENTS.keySet().removeAll(names);
+            pending = snapshot;
             try {
-                if (f.getName().endsWith("nrs")) {
-                    put(f.getName(), new NamedRuleSet(f.getPath()));
+                // cached rules get a new cache as soon as they are loaded, so
+                // that the NamedRuleSets depending on them use the new cache
+                for (String name : unloaded) getRule(name);
+            } catch(RuleNotFoundException | RuntimeException e) {
+                DEPENDENTS.clear();
+                DEPENDENTS.putAll(dependents);
+                throw e;
+            } finally {
+                pending = null;
+            }
+            registry = snapshot;
+            return unloaded;
+        }
+    }
+
+
+    /**
+     * Watches the rule files of dir, and reloads the rules defined in a
+     * file (see {@link #reloadRules(Collection)}) when it is created,
+     * modified or deleted. Errors are printed on the standard error stream,
+     * and the registry keeps the previous rules.
+     * Only one folder is watched at a time.
+     * @param dir the folder containing rules definition
+     */
+    public static void watchRules(String dir) throws IOException {
+        synchronized (LOCK) {
+            stopWatching();
+            watcher = new RuleWatcher(Paths.get(dir));
+            watcher.start();
+        }
+    }
+
+
+    /**
+     * Stops watching rule files.
+     */
+    public static void stopWatching() {
+        synchronized (LOCK) {
+            if (watcher != null) watcher.close();
+            watcher = null;
+        }
+    }
+
+
+    /**
+     * Daemon thread reloading modified rule files.
+     */
+    private static final class RuleWatcher extends Thread {
+
+        // delay to wait for the other events of the same modification
+        private static final long DELAY = 100;
+
+        private final Path dir;
+
+        private final WatchService service;
+
+        private RuleWatcher(Path dir) throws IOException {
+            super("RuleRegistry watcher " + dir);
+            setDaemon(true);
+            this.dir = dir;
+            this.service = dir.getFileSystem().newWatchService();
+            dir.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                                  StandardWatchEventKinds.ENTRY_MODIFY,
+                                  StandardWatchEventKinds.ENTRY_DELETE);
+        }
+
+        public void run() {
+            try {
+                while (true) {
+                    WatchKey key = service.take();
+                    Thread.sleep(DELAY);
+                    Set<File> files = new LinkedHashSet<>();
+                    while (key != null) {
+                        for (WatchEvent<?> event : key.pollEvents()) {
+                            if (event.context() instanceof Path) {
+                                files.add(dir.resolve((Path)event.context()).toFile());
+                            }
+                        }
+                        key.reset();
+                        key = service.poll();
+                    }
+                    try {
+                        if (!files.isEmpty()) reloadRules(files);
+                    } catch(RuleNotFoundException e) {
+                        e.printStackTrace();
+                    }
                 }
+            } catch(InterruptedException | ClosedWatchServiceException e) {
+                // stopped
             }
-            catch(RuleNotFoundException rnfe) {
-                // at first iteration, there may be missing named rule in Registry
+        }
+
+        private void close() {
+            try {
+                service.close();
+            } catch(IOException e) {
+                e.printStackTrace();
             }
         }
-        for (File f : directory.listFiles()) {
-            if (f.getName().endsWith("nrs")) {
-                put(f.getName(), new NamedRuleSet(f.getPath()));
+    }
+
+
+    /**
+     * Rules and descriptors of file-based rules which are not loaded yet.
+     */
+    private static final class Snapshot {
+
+        private final Map<String,Rule> rules;
+
+        private final Map<String,RuleDescriptor> descriptors;
+
+        private Snapshot() {
+            rules = new HashMap<>();
+            descriptors = new HashMap<>();
+        }
+
+        private Snapshot(Snapshot snapshot) {
+            rules = new HashMap<>(snapshot.rules);
+            descriptors = new HashMap<>(snapshot.descriptors);
+        }
+
+        private void register(RuleDescriptor descriptor) {
+            rules.remove(descriptor.name);
+            descriptors.put(descriptor.name, descriptor);
+        }
+    }
+
+    /**
+     * Description of a file-based rule, used to load it on demand.
+     */
+    private static final class RuleDescriptor {
+
+        private final String name;
+
+        private final File file;
+
+        // maximum length of the result (StopCondition), or -1
+        private final int maxLength;
+
+        private RuleDescriptor(String name, File file, int maxLength) {
+            this.name = name;
+            this.file = file;
+            this.maxLength = maxLength;
+        }
+
+        // Loads the rule ; rules a NamedRuleSet depends on are loaded by
+        // RuleRegistry.getRule while the NamedRuleSet is created
+        private Rule load() throws IOException, RuleFormatException, RuleNotFoundException {
+            if (file.getName().endsWith("nrs")) {
+                return new NamedRuleSet(file.getPath());
+            }
+            if (maxLength >= 0) {
+                return new ReplacePatternRuleSet(file.getPath(), new RuleSet.MaxLengthCondition(maxLength));
             }
+            return new ReplacePatternRuleSet(file.getPath()).compile();
         }
     }
 
@@ -15,12 +15,20 @@ import java.util.Iterator;
  */
 // History
 // 0.1 (2011-05-01)
+// 0.2 (2026-10-19) add an optional profiling mode, rule-major batch transformation
 public class RuleSet extends AbstractRule {
 
+    // number of Strings transformed by each rule before the next one in
+    // transformAll
+    private static final int BLOCK = 1024;
+
     Rule[] rules;
 
     StopCondition stopCondition;
 
+    // null unless profiling mode is on
+    private volatile RuleProfile profile;
+
     /**
      * Creates a RuleSet from a list of {@link Rule}s.
      */
@@ -48,16 +56,85 @@ public class RuleSet extends AbstractRule {
         return Arrays.asList(rules).iterator();
     }
 
+    /**
+     * Switches the profiling mode on or off. In profiling mode, the number of
+     * invocations, the number of matches (invocations changing the String),
+     * the cumulative time and the allocated bytes of each rule are recorded
+     * in a {@link RuleProfile}. Switching it on again keeps the statistics
+     * already collected.
+     */
+    public void setProfiling(boolean profiling) {
+        if (!profiling) profile = null;
+        else if (profile == null || !profile.isProfileOf(rules)) profile = new RuleProfile(rules);
+    }
+
+    /**
+     * Returns true if the profiling mode is on.
+     */
+    public boolean isProfiling() {
+        return profile != null;
+    }
+
+    /**
+     * Returns the statistics collected in profiling mode, or null if the
+     * profiling mode is off.
+     */
+    public RuleProfile getProfile() {
+        return profile;
+    }
+
     /**
      * Implements {@link Rule#transform(String s, Object context)}.
      */
     public String transform(String s, Object context) throws TransformationException {
+        RuleProfile profile = this.profile;
+        if (profile != null) {
+            for (int i = 0 ; i < rules.length ; i++) {
+                s = profile.transform(i, s, context);
+                if (null != stopCondition && stopCondition.valid(s)) return s;
+            }
+            return s;
+        }
         for (Rule rule : rules) {
             s = rule.transform(s, context);
             if (null != stopCondition && stopCondition.valid(s)) return s;
         }
         return s;
     }
+
+    /**
+     * Implements {@link Rule#transformAll(String[], int, String[], int, int)}.
+     * The Strings are processed by blocks, each rule being applied to the
+     * whole block before the next one (except in profiling mode), so that
+     * a rule and its data stay in the cache while it is used.
+     */
+    public void transformAll(String[] in, int inPos, String[] out, int outPos, int length)
+                                                throws TransformationException {
+        if (profile != null) {
+            for (int i = 0 ; i < length ; i++) {
+                out[outPos + i] = transform(in[inPos + i], null);
+            }
+            return;
+        }
+        if (in != out || inPos != outPos) System.arraycopy(in, inPos, out, outPos, length);
+        boolean[] stopped = stopCondition == null ? null : new boolean[Math.min(length, BLOCK)];
+        for (int from = 0 ; from < length ; from += BLOCK) {
+            int size = Math.min(BLOCK, length - from);
+            if (stopped == null) {
+                for (Rule rule : rules) rule.transformAll(out, outPos + from, out, outPos + from, size);
+                continue;
+            }
+            Arrays.fill(stopped, false);
+            for (Rule rule : rules) {
+                for (int i = 0 ; i < size ; i++) {
+                    if (stopped[i]) continue;
+                    String s = rule.transform(out[outPos + from + i], null);
+                    out[outPos + from + i] = s;
+                    stopped[i] = stopCondition.valid(s);
+                }
+            }
+        }
+    }
     
     /**
      * Interface defining a condition to stop to transform a String when
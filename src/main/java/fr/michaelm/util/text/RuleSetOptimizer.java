@@ -0,0 +1,226 @@
+/*
+ * (C) 2026 michael.michaud@free.fr
+ */
+
+package fr.michaelm.util.text;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Offline optimizer of a {@link ReplacePatternRuleSet}, knowing the set of
+ * characters its input Strings are made of (for example, the characters
+ * produced by {@link RuleRegistry#TO_ASCII38}, see {@link #imageOf}).
+ * <p>The optimizer :<ul>
+ * <li>drops dead rules, which cannot match any String made of the
+ * characters possibly present when they are applied (the characters of the
+ * input, plus the characters inserted by the previous replacements, minus
+ * the characters always replaced by a previous single character rule)</li>
+ * <li>moves rules based on literal strings back, next to the previous
+ * literal rule, when they commute with the rules in between, so that more
+ * literal rules are fused by {@link ReplacePatternRuleSet#compile()}</li>
+ * <li>compiles the result</li>
+ * </ul></p>
+ * <p>Two rules are considered to commute if they both insert characters,
+ * if the characters one of them may match or look at are disjoint from the
+ * characters of the other (pattern and replacement), and if none of them
+ * uses ., negated or predefined classes. Each rule then only rewrites
+ * maximal runs of its own characters that the other rule neither reads nor
+ * produces. A rule using word boundaries also requires the characters of
+ * the other rule to be all word characters or all non word characters,
+ * whatever the java version (non ascii letters and digits are neither).</p>
+ * <p>The optimized RuleSet gives the same results as the original one for
+ * any input made of the declared characters. A RuleSet with a StopCondition
+ * is returned as is, as the condition is checked after each rule.</p>
+ *
+ * @author Micha&euml;l Michaud
+ * @version 0.1 (2026-10-19)
+ */
+public class RuleSetOptimizer {
+
+    private final BitSet inputChars;
+
+    private final List<Rule> deadRules = new ArrayList<>();
+
+    private int movedRules;
+
+    /**
+     * Creates an optimizer for RuleSets applied to Strings made of
+     * inputChars.
+     */
+    public RuleSetOptimizer(BitSet inputChars) {
+        this.inputChars = (BitSet)inputChars.clone();
+    }
+
+    /**
+     * Creates an optimizer for RuleSets applied to Strings made of the
+     * characters of inputChars.
+     */
+    public RuleSetOptimizer(String inputChars) {
+        this.inputChars = new BitSet();
+        for (int i = 0 ; i < inputChars.length() ; i++) this.inputChars.set(inputChars.charAt(i));
+    }
+
+    /**
+     * Returns the set of characters rule may produce when applied to single
+     * characters of chars. This is the set of characters of its output for
+     * rules transforming each character independently, like
+     * {@link RuleRegistry#TO_ASCII38} or {@link RuleRegistry#TO_UPPERCASE}.
+     */
+    public static BitSet imageOf(Rule rule, BitSet chars) throws TransformationException {
+        BitSet image = new BitSet();
+        for (int c = chars.nextSetBit(0) ; c >= 0 ; c = chars.nextSetBit(c+1)) {
+            String s = rule.transform(String.valueOf((char)c));
+            if (s == null) continue;
+            for (int i = 0 ; i < s.length() ; i++) image.set(s.charAt(i));
+        }
+        return image;
+    }
+
+    /**
+     * Returns an optimized RuleSet giving the same results as ruleSet for
+     * Strings made of the input characters of this optimizer.
+     */
+    public ReplacePatternRuleSet optimize(ReplacePatternRuleSet ruleSet) {
+        deadRules.clear();
+        movedRules = 0;
+        if (ruleSet.stopCondition != null) return ruleSet;
+        List<Rule> live = removeDeadRules(ruleSet.rules);
+        List<Rule> ordered = groupLiteralRules(live);
+        return new ReplacePatternRuleSet(null, ordered.toArray(new Rule[0])).compile();
+    }
+
+    /**
+     * Returns the rules dropped by the last optimization.
+     */
+    public List<Rule> getDeadRules() {
+        return new ArrayList<>(deadRules);
+    }
+
+    /**
+     * Returns the number of rules moved by the last optimization.
+     */
+    public int getMovedRuleCount() {
+        return movedRules;
+    }
+
+    private List<Rule> removeDeadRules(Rule[] rules) {
+        List<Rule> live = new ArrayList<>();
+        BitSet present = (BitSet)inputChars.clone();
+        for (Rule rule : rules) {
+            if (!(rule instanceof ReplacePatternRule)) {
+                // unknown rule : any character may be present after it
+                present.set(0, Character.MAX_VALUE + 1);
+                live.add(rule);
+                continue;
+            }
+            ReplacePatternRule rpr = (ReplacePatternRule)rule;
+            PatternPrefilter prefilter = PatternPrefilter.of(rpr.getPattern());
+            if (prefilter != null && !prefilter.mayMatchChars(present)) {
+                deadRules.add(rule);
+                continue;
+            }
+            live.add(rule);
+            // characters always replaced by a single character rule
+            String[] literals = LiteralReplaceRuleGroup.getLiterals(rpr.getPattern());
+            String replacement = LiteralReplaceRuleGroup.getLiteralReplacement(rpr.getReplacement());
+            if (literals != null && replacement != null) {
+                boolean singleChars = true;
+                for (String literal : literals) singleChars &= literal.length() == 1;
+                if (singleChars) {
+                    for (String literal : literals) present.clear(literal.charAt(0));
+                }
+            }
+            present.or(insertedChars(rpr.getReplacement()));
+        }
+        return live;
+    }
+
+    private List<Rule> groupLiteralRules(List<Rule> rules) {
+        List<Rule> ordered = new ArrayList<>(rules);
+        for (int i = 1 ; i < ordered.size() ; i++) {
+            Rule rule = ordered.get(i);
+            if (!isLiteral(rule) || isLiteral(ordered.get(i - 1))) continue;
+            int j = i - 1;
+            while (j >= 0 && !isLiteral(ordered.get(j)) && commute(ordered.get(j), rule)) j--;
+            if (j >= 0 && j < i - 1 && isLiteral(ordered.get(j))) {
+                ordered.remove(i);
+                ordered.add(j + 1, rule);
+                movedRules++;
+            }
+        }
+        return ordered;
+    }
+
+    private static boolean isLiteral(Rule rule) {
+        return rule instanceof ReplacePatternRule &&
+               LiteralReplaceRuleGroup.isLiteral((ReplacePatternRule)rule);
+    }
+
+    // Returns true if r1 followed by r2 always gives the same result as r2
+    // followed by r1 (conservative)
+    static boolean commute(Rule r1, Rule r2) {
+        if (!(r1 instanceof ReplacePatternRule) || !(r2 instanceof ReplacePatternRule)) return false;
+        ReplacePatternRule rpr1 = (ReplacePatternRule)r1;
+        ReplacePatternRule rpr2 = (ReplacePatternRule)r2;
+        BitSet read1 = PatternPrefilter.alphabet(rpr1.getPattern());
+        BitSet read2 = PatternPrefilter.alphabet(rpr2.getPattern());
+        if (read1 == null || read2 == null) return false;
+        BitSet written1 = insertedChars(rpr1.getReplacement());
+        BitSet written2 = insertedChars(rpr2.getReplacement());
+        if (written1.isEmpty() || written2.isEmpty()) return false;
+        BitSet touched1 = (BitSet)read1.clone();
+        touched1.or(written1);
+        BitSet touched2 = (BitSet)read2.clone();
+        touched2.or(written2);
+        if (read1.intersects(touched2) || read2.intersects(touched1)) return false;
+        // a word boundary only depends on the word status of its neighbours,
+        // which is kept if the other rule never changes it
+        if (PatternPrefilter.usesWordBoundaries(rpr1.getPattern()) && !sameWordStatus(touched2)) return false;
+        if (PatternPrefilter.usesWordBoundaries(rpr2.getPattern()) && !sameWordStatus(touched1)) return false;
+        return true;
+    }
+
+    // Returns true if chars are all word characters or all non word
+    // characters in the sense of \b for any java version : letters, digits
+    // and _ before java 19, ascii letters, digits and _ since then. Chars
+    // whose status depends on the java version are neither, so that the
+    // optimized RuleSet does not depend on the java version running it.
+    private static boolean sameWordStatus(BitSet chars) {
+        int word = 0;
+        for (int c = chars.nextSetBit(0) ; c >= 0 ; c = chars.nextSetBit(c+1)) {
+            if (Character.getType(c) == Character.NON_SPACING_MARK) return false;
+            boolean unicodeWord = c == '_' || Character.isLetterOrDigit(c);
+            boolean asciiWord = c < 128 && unicodeWord;
+            if (unicodeWord != asciiWord) return false;
+            if (asciiWord) word++;
+        }
+        return word == 0 || word == chars.cardinality();
+    }
+
+    // Returns the characters inserted by a replacement string (groups copy
+    // characters which were already present)
+    private static BitSet insertedChars(String replacement) {
+        BitSet chars = new BitSet();
+        for (int i = 0 ; i < replacement.length() ; i++) {
+            char c = replacement.charAt(i);
+            if (c == '\\' && i + 1 < replacement.length()) {
+                chars.set(replacement.charAt(++i));
+            }
+            else if (c == '$') {
+                i++;
+                if (i < replacement.length() && replacement.charAt(i) == '{') {
+                    while (i < replacement.length() && replacement.charAt(i) != '}') i++;
+                }
+                else {
+                    while (i + 1 < replacement.length() && Character.isDigit(replacement.charAt(i + 1))) i++;
+                }
+            }
+            else chars.set(c);
+        }
+        return chars;
+    }
+
+}
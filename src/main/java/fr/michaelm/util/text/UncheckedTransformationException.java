@@ -0,0 +1,29 @@
+/*
+ * (C) 2026 michael.michaud@free.fr
+ */
+
+package fr.michaelm.util.text;
+
+/**
+ * Wraps a {@link TransformationException} thrown while transforming a
+ * Stream of Strings (see {@link Rule#transformAll(java.util.stream.Stream)}).
+ *
+ * @author Micha&euml;l Michaud
+ * @version 0.1 (2026-10-19)
+ */
+public class UncheckedTransformationException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public UncheckedTransformationException(TransformationException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    /**
+     * Returns the wrapped TransformationException.
+     */
+    public TransformationException getCause() {
+        return (TransformationException)super.getCause();
+    }
+
+}
@@ -20,6 +20,12 @@ import java.util.HashMap;
  * 
  * Searching the tree yields O(logn), which is a huge upgrade over brute force
  * 
+ * The searched term is compiled once with {@link EditDistance#compile(String)}
+ * and compared with all the visited nodes. Queries compute bounded distances
+ * (see {@link EditDistance#editDistance(String, String, int)}) : beyond the
+ * threshold plus the greatest distance to a child, the exact distance to a
+ * node is useless.
+ * 
  * @author Josh Clemm
  *
  */
@@ -36,7 +42,7 @@ public class BKTree {
     
     public void add(String term) {
         if(root != null) {
-            root.add(term);
+            root.add(distance.compile(term));
         }
         else {
             root = new Node(term);
@@ -55,7 +61,7 @@ public class BKTree {
      */
     public HashMap<String, Integer> query(String searchObject, int threshold) {
         HashMap<String, Integer> matches = new HashMap<>();
-        root.query(searchObject, threshold, matches);
+        root.query(distance.compile(searchObject), threshold, matches);
         return matches;
     }
     
@@ -65,7 +71,7 @@ public class BKTree {
      * @return the edit distance of the best match
      */
     public int find(String term) {
-        return root.findBestMatch(term, Integer.MAX_VALUE);
+        return root.findBestMatch(distance.compile(term), Integer.MAX_VALUE);
     }
     
     /**
@@ -74,7 +80,7 @@ public class BKTree {
      * @return a match that is within the best edit distance of the search term.
      */
     public String findBestWordMatch(String term) {
-        root.findBestMatch(term, Integer.MAX_VALUE);
+        root.findBestMatch(distance.compile(term), Integer.MAX_VALUE);
         return root.getBestTerm();
     }
     
@@ -84,7 +90,7 @@ public class BKTree {
      * @return a match that is within the best edit distance of the search term.
      */
     public HashMap<String,Integer> findBestWordMatchWithDistance(String term) {
-        int distance = root.findBestMatch(term, Integer.MAX_VALUE);
+        int distance = root.findBestMatch(this.distance.compile(term), Integer.MAX_VALUE);
         HashMap<String, Integer> returnMap = new HashMap<>();
         returnMap.put(root.getBestTerm(), distance);
         return returnMap;
@@ -94,27 +100,29 @@ public class BKTree {
     
         String term;
         HashMap<Integer, Node> children;
+        int maxScore;
         
         public Node(String term) {
             this.term = term;
             children = new HashMap<>();
         }
         
-        public void add(String term) {
-            int score = distance.editDistance(term, this.term);
+        public void add(QueryDistance term) {
+            int score = term.editDistance(this.term);
             
             Node child = children.get(score);
             if(child != null) {
                     child.add(term);
             }
             else {
-                    children.put(score, new Node(term));
+                    children.put(score, new Node(term.getQuery()));
+                    if (score > maxScore) maxScore = score;
             }
         }
         
-        public int findBestMatch(String term, int bestDistance) {
+        public int findBestMatch(QueryDistance term, int bestDistance) {
 
-            int distanceAtNode = distance.editDistance(term, this.term);
+            int distanceAtNode = term.editDistance(this.term);
             
             if(distanceAtNode < bestDistance) {
                 bestDistance = distanceAtNode;
@@ -138,15 +146,11 @@ public class BKTree {
             return bestTerm;
         }
         
-        public void query(String term, int threshold, HashMap<String, Integer> collected) {
-            int distanceAtNode = distance.editDistance(term, this.term);
-            
-            if(distanceAtNode == threshold) {
-                collected.put(this.term, distanceAtNode);
-                return;
-            }
+        public void query(QueryDistance term, int threshold, HashMap<String, Integer> collected) {
+            int limit = maxScore + threshold + 1;
+            int distanceAtNode = term.editDistance(this.term, limit < 0 ? Integer.MAX_VALUE : limit);
             
-            if(distanceAtNode < threshold) {
+            if(distanceAtNode <= threshold) {
                 collected.put(this.term, distanceAtNode);
             }
             
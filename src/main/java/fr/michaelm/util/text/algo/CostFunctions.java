@@ -126,6 +126,20 @@ public class CostFunctions {
             return 5;
         }
     };
+
+    /**
+     * <p>Is {@link #frenchCosts} compiled into a {@link CostTable} for the
+     * chars of {@link CostTable#LATIN_ALPHABET} : the costs are the same, but
+     * they are read in a table instead of being computed for each cell of
+     * the matrix. The table is compiled at the first call.</p>
+     */
+    public static CostTable frenchCostTable() {
+        return FrenchCostTable.TABLE;
+    }
+
+    private static final class FrenchCostTable {
+        static final CostTable TABLE = CostTable.compile(frenchCosts);
+    }
   
 }
   
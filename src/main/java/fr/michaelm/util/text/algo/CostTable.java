@@ -0,0 +1,133 @@
+/*
+ * (C) 2026 michael.michaud@free.fr
+ */
+
+package fr.michaelm.util.text.algo;
+
+import java.util.Arrays;
+
+/**
+ * A {@link LevenshteinCosts} compiled into dense lookup tables.
+ * <p>The chars of an alphabet are mapped to small ids, and the costs of the
+ * insertion or deletion of each char, and of the substitution of each pair
+ * of chars, are computed once and stored in flat arrays. Costs of chars out
+ * of the alphabet are still asked to the compiled LevenshteinCosts.</p>
+ * <p>{@link WLevenshteinDistance} recognizes a CostTable and reads the
+ * substitution costs directly in the table, with a single array load per
+ * cell of the matrix.</p>
+ *
+ * @author Micha&euml;l Michaud
+ * @version 0.1 (2026-10-19)
+ */
+public final class CostTable implements LevenshteinCosts {
+
+    /**
+     * Printable ASCII chars, latin-1 accented letters, &#x0152; and &#x0153;.
+     */
+    public static final String LATIN_ALPHABET;
+    static {
+        StringBuilder sb = new StringBuilder();
+        for (char c = ' ' ; c <= '~' ; c++) sb.append(c);
+        for (char c = 'À' ; c <= 'ÿ' ; c++) sb.append(c);
+        sb.append('Œ').append('œ');
+        LATIN_ALPHABET = sb.toString();
+    }
+
+    private final LevenshteinCosts costs;
+    // id of each char lower than ids.length, or -1
+    private final short[] ids;
+    private final int size;
+    private final short[] insDel;
+    // substitution cost of chars with ids i and j at index i * size + j
+    final short[] subst;
+
+    private CostTable(LevenshteinCosts costs, String alphabet) {
+        this.costs = costs;
+        char max = 0;
+        for (int i = 0 ; i < alphabet.length() ; i++) {
+            if (alphabet.charAt(i) > max) max = alphabet.charAt(i);
+        }
+        ids = new short[alphabet.length() == 0 ? 0 : max + 1];
+        Arrays.fill(ids, (short)-1);
+        StringBuilder chars = new StringBuilder();
+        for (int i = 0 ; i < alphabet.length() ; i++) {
+            char c = alphabet.charAt(i);
+            if (ids[c] < 0) {
+                if (chars.length() > Short.MAX_VALUE) {
+                    throw new IllegalArgumentException("Alphabet is too large");
+                }
+                ids[c] = (short)chars.length();
+                chars.append(c);
+            }
+        }
+        size = chars.length();
+        insDel = new short[size];
+        subst = new short[size * size];
+        for (int i = 0 ; i < size ; i++) {
+            insDel[i] = toShort(costs.insDelCost(chars.charAt(i)));
+            for (int j = 0 ; j < size ; j++) {
+                subst[i * size + j] = toShort(costs.substCost(chars.charAt(i), chars.charAt(j)));
+            }
+        }
+    }
+
+    private static short toShort(int cost) {
+        if (cost < Short.MIN_VALUE || cost > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Cost " + cost + " cannot be stored in the table");
+        }
+        return (short)cost;
+    }
+
+    /**
+     * Compiles costs for the chars of {@link #LATIN_ALPHABET}.
+     */
+    public static CostTable compile(LevenshteinCosts costs) {
+        return compile(costs, LATIN_ALPHABET);
+    }
+
+    /**
+     * Compiles costs for the chars of alphabet. The tables have
+     * alphabet.length()<sup>2</sup> entries.
+     */
+    public static CostTable compile(LevenshteinCosts costs, String alphabet) {
+        if (costs instanceof CostTable) costs = ((CostTable)costs).costs;
+        return new CostTable(costs, alphabet);
+    }
+
+    /**
+     * Returns the compiled LevenshteinCosts.
+     */
+    public LevenshteinCosts getCosts() {
+        return costs;
+    }
+
+    /**
+     * Returns the number of chars of the alphabet.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the id of c in the alphabet, or -1 if c is not in the alphabet.
+     */
+    public int id(char c) {
+        return c < ids.length ? ids[c] : -1;
+    }
+
+    public int insDelCost(char c) {
+        int id = id(c);
+        return id < 0 ? costs.insDelCost(c) : insDel[id];
+    }
+
+    public int substCost(char c1, char c2) {
+        int id1 = id(c1);
+        int id2 = id(c2);
+        return id1 < 0 || id2 < 0 ? costs.substCost(c1, c2) : subst[id1 * size + id2];
+    }
+
+    public int maxCost() {
+        return costs.maxCost();
+    }
+
+}
@@ -5,6 +5,8 @@ package fr.michaelm.util.text.algo;
  * http://joshdrew.com/
  *
  * Updates:
+ * October 19 2026 - limited distances only compute the diagonal band of the
+ *  matrix where the distance can be lower than the limit
  * November 27 2009 - total rewrite. A few hard-to-squash bugs
  *  were made harder by obscure variable names, some of which were
  * transposed in various places by repeated fixes
@@ -73,64 +75,14 @@ public class DamarauLevenshteinDistance {
         return dl[dlIndex];
     }
     
+    /**
+     * Levenshtein distance between s and t if it is lower than limit, or limit
+     * otherwise. Only the cells of the diagonal band where the distance can be
+     * lower than limit are computed (Ukkonen), and the computation stops as
+     * soon as no cell of a column can lead to a distance lower than limit.
+     */
     public static int levenshtein(String s, String t, int limit, int[] workspace) {
-        int lenS = s.length();
-        int lenT = t.length();
-        if (lenS < lenT) {
-            if (lenT - lenS >= limit) return limit;
-        }
-        else if (lenT < lenS) {
-            if (lenS - lenT >= limit) return limit;
-        }
-        int lenS1 = lenS + 1;
-        int lenT1 = lenT + 1;
-        if (lenS1 == 1) return (lenT < limit)?lenT:limit;
-        if (lenT1 == 1) return (lenS < limit)?lenS:limit;
-        int[] dl = workspace;
-        int dlIndex = 0;
-        int sPrevIndex = 0, tPrevIndex = 0, rowBefore = 0, min = 0, tmp = 0, best = 0, cost = 0;
-        int tri = lenS1 + 2;
-        // start row with constant
-        dlIndex = 0;
-        for (tmp = 0; tmp < lenT1; tmp++) {
-            dl[dlIndex] = tmp;
-            dlIndex += lenS1;
-        }
-        for (int sIndex = 0; sIndex < lenS; sIndex++) {
-            dlIndex = sIndex + 1;
-            dl[dlIndex] = dlIndex; // start column with constant
-            best = limit;
-            for (int tIndex = 0; tIndex < lenT; tIndex++) {
-                rowBefore = dlIndex;
-                dlIndex += lenS1;
-                //deletion
-                min = dl[rowBefore] + 1;
-                // insertion
-                tmp = dl[dlIndex - 1] + 1;
-                if (tmp < min) {
-                    min = tmp;
-                }
-                cost = 1;
-                if (s.charAt(sIndex) == t.charAt(tIndex)) {
-                    cost = 0;
-                }
-                // substitution
-                tmp = dl[rowBefore - 1] + cost;
-                if (tmp < min) {
-                    min = tmp;
-                }
-                dl[dlIndex] = min;
-                if (min < best) {
-                    best = min;
-                }
-                tPrevIndex = tIndex;
-            }
-            if (best >= limit) return limit;
-            sPrevIndex = sIndex;
-        }
-        if (dl[dlIndex] >= limit) return limit;
-        else return dl[dlIndex];
-
+        return banded(s, t, limit, workspace, false);
     }
     
     public static int damarauLevenshtein(String s, String t, int[] workspace) {
@@ -190,55 +142,59 @@ public class DamarauLevenshteinDistance {
         return dl[dlIndex];
     }
     
+    /**
+     * Damarau-Levenshtein distance between s and t if it is lower than limit,
+     * or limit otherwise, computed in the diagonal band as
+     * {@link #levenshtein(String, String, int, int[])}.
+     */
     public static int damarauLevenshtein(String s, String t, int limit, int[] workspace) {
+        return banded(s, t, limit, workspace, true);
+    }
+    
+    // Computes the cells (sIndex, tIndex) of the matrix such that
+    // |sIndex - tIndex| < limit, the other ones being at least limit. The
+    // matrix is stored in workspace column by column, as in the unbounded
+    // methods, and the cells just outside the band are set to limit.
+    private static int banded(String s, String t, int limit, int[] workspace, boolean transposition) {
         int lenS = s.length();
         int lenT = t.length();
-        if (lenS < lenT) {
-            if (lenT - lenS >= limit) return limit;
-        }
-        else if (lenT < lenS) {
-            if (lenS - lenT >= limit) return limit;
-        }
+        if (Math.abs(lenS - lenT) >= limit) return limit;
+        if (lenS == 0) return lenT;
+        if (lenT == 0) return lenS;
         int lenS1 = lenS + 1;
-        int lenT1 = lenT + 1;
-        if (lenS1 == 1) return (lenT < limit)?lenT:limit;
-        if (lenT1 == 1) return (lenS < limit)?lenS:limit;
-        int[] dl = workspace;
-        int dlIndex = 0;
-        int sPrevIndex = 0, tPrevIndex = 0, rowBefore = 0, min = 0, tmp = 0, best = 0, cost = 0;
         int tri = lenS1 + 2;
+        int band = Math.min(limit - 1, Math.max(lenS, lenT));
+        int[] dl = workspace;
         // start row with constant
-        dlIndex = 0;
-        for (tmp = 0; tmp < lenT1; tmp++) {
-            dl[dlIndex] = tmp;
-            dlIndex += lenS1;
+        for (int tIndex = 0, max = Math.min(lenT, band + 1); tIndex <= max; tIndex++) {
+            dl[tIndex * lenS1] = tIndex;
         }
-        for (int sIndex = 0; sIndex < lenS; sIndex++) {
-            dlIndex = sIndex + 1;
-            dl[dlIndex] = dlIndex; // start column with constant
-            best = limit;
-            for (int tIndex = 0; tIndex < lenT; tIndex++) {
-                rowBefore = dlIndex;
+        int dlIndex = 0;
+        for (int sIndex = 1; sIndex <= lenS; sIndex++) {
+            char c = s.charAt(sIndex - 1);
+            int first = Math.max(1, sIndex - band);
+            int last = Math.min(lenT, sIndex + band);
+            dlIndex = (first - 1) * lenS1 + sIndex;
+            // start column with constant, or first cell above the band
+            dl[dlIndex] = first == 1 ? sIndex : limit;
+            int best = first == 1 ? sIndex + Math.abs(lenS - sIndex - lenT) : limit;
+            for (int tIndex = first; tIndex <= last; tIndex++) {
+                int rowBefore = dlIndex;
                 dlIndex += lenS1;
-                //deletion
-                min = dl[rowBefore] + 1;
+                // deletion
+                int min = dl[rowBefore] + 1;
                 // insertion
-                tmp = dl[dlIndex - 1] + 1;
+                int tmp = dl[dlIndex - 1] + 1;
                 if (tmp < min) {
                     min = tmp;
                 }
-                cost = 1;
-                if (s.charAt(sIndex) == t.charAt(tIndex)) {
-                    cost = 0;
-                }
-                if (sIndex > 0 && tIndex > 0) {
-                    if (s.charAt(sIndex) == t.charAt(tPrevIndex) && 
-                        s.charAt(sPrevIndex) == t.charAt(tIndex)) {
-                        tmp = dl[rowBefore - tri] + cost;
-                        // transposition
-                        if (tmp < min) {
-                            min = tmp;
-                        }
+                int cost = c == t.charAt(tIndex - 1) ? 0 : 1;
+                // transposition
+                if (transposition && sIndex > 1 && tIndex > 1 &&
+                    c == t.charAt(tIndex - 2) && s.charAt(sIndex - 2) == t.charAt(tIndex - 1)) {
+                    tmp = dl[rowBefore - tri] + cost;
+                    if (tmp < min) {
+                        min = tmp;
                     }
                 }
                 // substitution
@@ -247,16 +203,17 @@ public class DamarauLevenshteinDistance {
                     min = tmp;
                 }
                 dl[dlIndex] = min;
-                if (min < best) {
-                    best = min;
+                // the remaining length difference must be edited
+                tmp = min + Math.abs((lenS - sIndex) - (lenT - tIndex));
+                if (tmp < best) {
+                    best = tmp;
                 }
-                tPrevIndex = tIndex;
             }
             if (best >= limit) return limit;
-            sPrevIndex = sIndex;
+            // first cell under the band, read by the next column
+            if (last < lenT) dl[dlIndex + lenS1] = limit;
         }
-        if (dl[dlIndex] >= limit) return limit;
-        else return dl[dlIndex];
+        return dl[dlIndex] < limit ? dl[dlIndex] : limit;
     }
     
     public static int[] getWorkspace(int sl, int tl) {
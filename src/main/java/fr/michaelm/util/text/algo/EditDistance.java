@@ -10,8 +10,12 @@ package fr.michaelm.util.text.algo;
  * another String. It is used to measure similarity between two Strings.
  *
  * @author Michael Michaud
- * @version 0.1 (2011-12-01)
+ * @version 0.3 (2026-10-19)
  */
+// History
+// 0.1 (2011-12-01)
+// 0.2 (2026-10-19) add compile
+// 0.3 (2026-10-19) add bounded editDistance
 public interface EditDistance {
     
    /**
@@ -22,5 +26,39 @@ public interface EditDistance {
     * @return a float value representing a normalized distance.
     */
     int editDistance(String s, String t);
+
+   /**
+    * Edit distance between s and t if it is lower than limit, or limit
+    * otherwise. Implementations can stop the computation as soon as the
+    * distance is known to reach the limit, which makes comparisons with
+    * a small limit much faster.
+    * @param s String to compare from
+    * @param t String to compare to
+    * @param limit maximum value returned
+    */
+    default int editDistance(String s, String t, int limit) {
+        return Math.min(editDistance(s, t), limit);
+    }
+
+   /**
+    * Returns a QueryDistance computing the distance from query to any
+    * String, to compare one query with many Strings.
+    * The default implementation only calls {@link #editDistance(String, String)} :
+    * implementations should precompute what depends only on the query.
+    * @param query String to compare from
+    */
+    default QueryDistance compile(final String query) {
+        return new QueryDistance() {
+            public String getQuery() {
+                return query;
+            }
+            public int editDistance(String t) {
+                return EditDistance.this.editDistance(query, t);
+            }
+            public int editDistance(String t, int limit) {
+                return EditDistance.this.editDistance(query, t, limit);
+            }
+        };
+    }
     
 }
\ No newline at end of file
@@ -11,37 +11,36 @@ package fr.michaelm.util.text.algo;
  * into another, where each change is a single character modification (deletion,
  * insertion or substitution).
  *
- * <p>This implementation, is the one proposed by Chas Emerick for the Apache
- * Commons Lang library.</p>
- * <p>It is based on Michael Gilleland implementation, but it is more memory 
- * efficient for large strings.</p>
- * <p>See also <a href="http://www.merriampark.com/ldjava.htm">
- * http://www.merriampark.com/ldjava.htm</a></p>
- * 
- * <p>The difference between this implementation and the classical one is
- * that, rather than creating and retaining a matrix of size s.length()+1 by
- * t.length()+1, we maintain two single-dimensional arrays of length s.length()+1.
- * The first, d, is the 'current working' distance array that maintains the
- * newest distance cost counts as we iterate through the characters of String s.
- * Each time we increment the index of String t we are comparing, d is copied to
- * p, the second int[]. Doing so allows us to retain the previous cost counts as
- * required by the algorithm (taking the minimum of the cost count to the left,
- * up one, and diagonally up and to the left of the current cost count being
- * calculated). (Note that the arrays aren't really copied anymore, just
- * switched...this is clearly much better than cloning an array or doing a 
- * System.arraycopy() each time  through the outer loop.)</p>
+ * <p>The first implementation was the one proposed by Chas Emerick for the
+ * Apache Commons Lang library, based on Michael Gilleland implementation
+ * (see <a href="http://www.merriampark.com/ldjava.htm">
+ * http://www.merriampark.com/ldjava.htm</a>), maintaining two rows of the
+ * dynamic programming matrix.</p>
+ *
+ * <p>The distance is now computed with the bit-parallel algorithm of Myers
+ * (see {@link MyersLevenshtein}) : the rows of the matrix are encoded as bit
+ * vectors, and each character of the longest string is processed with a
+ * few operations on 64 bits words, whatever the length of the shortest
+ * string, up to 64 characters.</p>
  * 
  * <p>
  * In order to normalize the result, distance returns the ratio between the
  * edit number and the longest string.
  * </p>
  * @author Michael Michaud
- * @version 0.1 (2009-04-20)
+ * @version 0.3 (2026-10-19)
  */
-
+// History
+// 0.1 (2009-04-20)
+// 0.2 (2026-10-19) bit-parallel algorithm, add compile
+// 0.3 (2026-10-19) add bounded editDistance
 public class LevenshteinDistance implements StringDistance, EditDistance {
     
     public static final LevenshteinDistance LEVENSHTEIN_DISTANCE = new LevenshteinDistance();
+
+    // per-thread bit-parallel algorithm, reused for each pattern
+    private static final ThreadLocal<MyersLevenshtein> MYERS =
+            ThreadLocal.withInitial(() -> new MyersLevenshtein(""));
     
     private LevenshteinDistance() {}
 
@@ -68,46 +67,69 @@ public class LevenshteinDistance implements StringDistance, EditDistance {
         if (n == 0)      return m;
         else if (m == 0) return n;
 
-        int[] p = new int[n+1]; //'previous' cost array, horizontally
-        int[] d = new int[n+1]; // cost array, horizontally
-        int[] _d;               //placeholder to assist in swapping p and d
+        // the shortest string is the pattern of the bit-parallel algorithm
+        MyersLevenshtein myers = MYERS.get();
+        myers.setPattern(n < m ? s : t);
+        return myers.distance(n < m ? t : s);
+    }
 
-        // indexes into strings s and t
-        int i;    // iterates through s
-        int j;    // iterates through t
+   /**
+    * Levenshtein distance between two Strings if it is lower than limit, or
+    * limit otherwise.
+    *
+    * <p>Strings with a length difference greater or equal to limit are not
+    * compared, and the computation stops as soon as the remaining chars
+    * cannot bring the distance under the limit.</p>
+    *
+    * @param s String to compare from
+    * @param t String to compare to
+    * @param limit maximum value returned
+    * @return the number of changes needed to change one string into another,
+    * or limit
+    */
+    public int editDistance(String s, String t, int limit) {
+        
+        if (s == null || t == null) {
+            throw new IllegalArgumentException("Strings must not be null");
+        }
         
-        char t_j; // jth character of t
-        int cost; // cost
+        int n = s.length(); // length of s
+        int m = t.length(); // length of t
 
-        for (i = 0; i<=n; i++) {
-            p[i] = i;
+        MyersLevenshtein myers = MYERS.get();
+        myers.setPattern(n < m ? s : t);
+        return myers.distance(n < m ? t : s, limit);
+    }
+
+   /**
+    * Returns a QueryDistance computing the Levenshtein distance from query :
+    * the bit masks of the query chars are computed once. The QueryDistance
+    * can be used concurrently.
+    *
+    * @param query String to compare from
+    */
+    public QueryDistance compile(String query) {
+        if (query == null) {
+            throw new IllegalArgumentException("Strings must not be null");
         }
-		
-        for (j = 1; j<=m; j++) {
-            t_j = t.charAt(j-1);
-            d[0] = j;
-            for (i=1; i<=n; i++) {
-                cost = s.charAt(i-1)==t_j ? 0 : 1;
-                // minimum of cell to the left+1, to the top+1, diagonally left and up +cost
-                // if the hereabove inline min function takes 1300 ms
-                // inline Math.min(Math.min(a,b),c) takes 1350 ms
-                // call to a static final min function takes 1530 ms 
-                int a = d[i-1]+1;
-                int b = p[i]+1;
-                int c = p[i-1]+cost;
-                int min = a;
-                if (b < min) min = b;
-                if (c < min) min = c;
-                d[i] = min;
+        final MyersLevenshtein myers = new MyersLevenshtein(query);
+        return new QueryDistance() {
+            public String getQuery() {
+                return query;
+            }
+            public int editDistance(String t) {
+                if (t == null) {
+                    throw new IllegalArgumentException("Strings must not be null");
+                }
+                return myers.distance(t);
+            }
+            public int editDistance(String t, int limit) {
+                if (t == null) {
+                    throw new IllegalArgumentException("Strings must not be null");
+                }
+                return myers.distance(t, limit);
             }
-            // copy current distance counts to 'previous row' distance counts
-            _d = p;
-            p = d;
-            d = _d;
-        } 		
-       // our last action in the above loop was to switch d and p, so p now 
-       // actually has the most recent cost counts
-       return p[n];
+        };
     }
 
    /**
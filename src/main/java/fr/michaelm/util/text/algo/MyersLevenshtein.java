@@ -0,0 +1,205 @@
+/*
+ * (C) 2026 michael.michaud@free.fr
+ */
+
+package fr.michaelm.util.text.algo;
+
+import java.util.Arrays;
+
+/**
+ * Bit-parallel computation of the Levenshtein distance between a pattern and
+ * any text (G. Myers, A fast bit-vector algorithm for approximate string
+ * matching based on dynamic programming, 1999, as formulated by H. Hyyr&ouml;
+ * for the edit distance).
+ * <p>A column of the dynamic programming matrix is encoded by the vertical
+ * differences between its cells (+1, 0 or -1), stored as two bit vectors,
+ * and the next column is computed with a few logical and arithmetic
+ * operations on 64 bits words : the distance is computed in
+ * O(&#x2308;m/64&#x2309;.n) operations, where m is the length of the pattern
+ * and n the length of the text. Patterns longer than 64 chars are split
+ * into blocks of 64 chars.</p>
+ * <p>The bit masks of the chars of the pattern are computed once. They are
+ * stored in a table for chars lower than 256, and in a small hash table for
+ * other chars. A MyersLevenshtein can be reused for another pattern with
+ * {@link #setPattern(CharSequence)}.</p>
+ * <p>With a limit, the computation stops as soon as the distance cannot be
+ * lower than the limit : the last row of the matrix decreases at most by one
+ * for each remaining char of the text.</p>
+ *
+ * @author Micha&euml;l Michaud
+ * @version 0.1 (2026-10-19)
+ */
+final class MyersLevenshtein {
+
+    private CharSequence pattern = "";
+    private int m;
+    private int blocks;
+
+    // masks of chars lower than 256, at index c * blocks + block
+    private long[] latin = new long[256];
+
+    // hash table of the other chars of the pattern (0 for empty slots), and
+    // their masks, at index slot * blocks + block
+    private char[] keys = new char[0];
+    private long[] masks = new long[0];
+    private boolean high;
+
+    /**
+     * Creates a MyersLevenshtein for pattern.
+     */
+    MyersLevenshtein(CharSequence pattern) {
+        setPattern(pattern);
+    }
+
+    /**
+     * Returns the pattern.
+     */
+    CharSequence getPattern() {
+        return pattern;
+    }
+
+    /**
+     * Changes the pattern, reusing the tables of the previous one.
+     */
+    void setPattern(CharSequence pattern) {
+        clear();
+        this.pattern = pattern.toString();
+        this.m = pattern.length();
+        this.blocks = Math.max(1, (m + 63) >>> 6);
+        if (latin.length < 256 * blocks) latin = new long[256 * blocks];
+        int count = 0;
+        for (int i = 0 ; i < m ; i++) {
+            char c = pattern.charAt(i);
+            if (c < 256) latin[c * blocks + (i >>> 6)] |= 1L << i;
+            else count++;
+        }
+        high = count > 0;
+        if (high) {
+            int capacity = Integer.highestOneBit(count * 2 + 1) << 1;
+            if (keys.length < capacity) {
+                keys = new char[capacity];
+                masks = new long[capacity * blocks];
+            }
+            else if (masks.length < keys.length * blocks) {
+                masks = new long[keys.length * blocks];
+            }
+            for (int i = 0 ; i < m ; i++) {
+                char c = pattern.charAt(i);
+                if (c >= 256) masks[slot(c, true) * blocks + (i >>> 6)] |= 1L << i;
+            }
+        }
+    }
+
+    // Resets the masks of the current pattern
+    private void clear() {
+        for (int i = 0 ; i < m ; i++) {
+            char c = pattern.charAt(i);
+            if (c < 256) Arrays.fill(latin, c * blocks, (c + 1) * blocks, 0L);
+        }
+        if (high) {
+            Arrays.fill(keys, (char)0);
+            Arrays.fill(masks, 0L);
+            high = false;
+        }
+    }
+
+    // Returns the slot of c in the hash table, or -1 if c is not in the
+    // table (c is added if add is true)
+    private int slot(char c, boolean add) {
+        int mask = keys.length - 1;
+        int slot = (c * 0x9E3779B1 >>> 16) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == c) return slot;
+            slot = (slot + 1) & mask;
+        }
+        if (!add) return -1;
+        keys[slot] = c;
+        return slot;
+    }
+
+    // Returns the positions of c in block b of the pattern
+    private long mask(char c, int b) {
+        if (c < 256) return latin[c * blocks + b];
+        if (!high) return 0L;
+        int slot = slot(c, false);
+        return slot < 0 ? 0L : masks[slot * blocks + b];
+    }
+
+    /**
+     * Returns the Levenshtein distance between the pattern and text.
+     */
+    int distance(CharSequence text) {
+        return distance(text, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the Levenshtein distance between the pattern and text if it is
+     * lower than limit, and limit otherwise.
+     */
+    int distance(CharSequence text, int limit) {
+        int n = text.length();
+        if (Math.abs(m - n) >= limit) return limit;
+        if (m == 0) return n;
+        return blocks == 1 ? distance64(text, limit) : distanceBlocks(text, limit);
+    }
+
+    private int distance64(CharSequence text, int limit) {
+        long last = 1L << (m - 1);
+        long pv = -1L;
+        long mv = 0L;
+        int score = m;
+        for (int j = 0, n = text.length() ; j < n ; j++) {
+            char c = text.charAt(j);
+            long eq = c < 256 ? latin[c] : mask(c, 0);
+            long xv = eq | mv;
+            long xh = (((eq & pv) + pv) ^ pv) | eq;
+            long ph = mv | ~(xh | pv);
+            long mh = pv & xh;
+            if ((ph & last) != 0) score++;
+            else if ((mh & last) != 0) score--;
+            // the first row of the matrix increases by one at each column
+            ph = (ph << 1) | 1L;
+            mh <<= 1;
+            pv = mh | ~(xv | ph);
+            mv = ph & xv;
+            if (score - (n - j - 1) >= limit) return limit;
+        }
+        return score;
+    }
+
+    private int distanceBlocks(CharSequence text, int limit) {
+        long[] pvs = new long[blocks];
+        long[] mvs = new long[blocks];
+        Arrays.fill(pvs, -1L);
+        long last = 1L << ((m - 1) & 63);
+        int score = m;
+        for (int j = 0, n = text.length() ; j < n ; j++) {
+            char c = text.charAt(j);
+            // horizontal difference entering the block (+1 in the first row)
+            int h = 1;
+            for (int b = 0 ; b < blocks ; b++) {
+                long eq = mask(c, b);
+                long pv = pvs[b];
+                long mv = mvs[b];
+                long xv = eq | mv;
+                if (h < 0) eq |= 1L;
+                long xh = (((eq & pv) + pv) ^ pv) | eq;
+                long ph = mv | ~(xh | pv);
+                long mh = pv & xh;
+                long top = b == blocks - 1 ? last : 1L << 63;
+                int out = (ph & top) != 0 ? 1 : (mh & top) != 0 ? -1 : 0;
+                ph <<= 1;
+                mh <<= 1;
+                if (h < 0) mh |= 1L;
+                else if (h > 0) ph |= 1L;
+                pvs[b] = mh | ~(xv | ph);
+                mvs[b] = ph & xv;
+                h = out;
+            }
+            score += h;
+            if (score - (n - j - 1) >= limit) return limit;
+        }
+        return score;
+    }
+
+}
@@ -0,0 +1,41 @@
+/*
+ * (C) 2026 michael.michaud@free.fr
+ */
+
+package fr.michaelm.util.text.algo;
+
+/**
+ * An {@link EditDistance} from a fixed query String, returned by
+ * {@link EditDistance#compile(String)}. Everything depending only on the
+ * query is computed once, so that the query can be compared cheaply with
+ * many candidates.
+ *
+ * @author Micha&euml;l Michaud
+ * @version 0.1 (2026-10-19)
+ */
+public interface QueryDistance {
+
+   /**
+    * Returns the query this QueryDistance has been compiled for.
+    */
+    String getQuery();
+
+   /**
+    * Number of deletions, insertions, or substitutions required to transform
+    * the query into String t (same value as
+    * {@code editDistance(getQuery(), t)}).
+    * @param t String to compare to
+    */
+    int editDistance(String t);
+
+   /**
+    * Edit distance between the query and t if it is lower than limit, or
+    * limit otherwise (see {@link EditDistance#editDistance(String, String, int)}).
+    * @param t String to compare to
+    * @param limit maximum value returned
+    */
+    default int editDistance(String t, int limit) {
+        return Math.min(editDistance(t), limit);
+    }
+
+}
@@ -10,6 +10,8 @@ package fr.michaelm.util.text.algo;
  * this class can be parameterized by implementations of {@link LevenshteinCosts}
  * to tune the costs of the edit operations.</p>
  * <p> W of WLevenshtein is for weighted Levenshtein distance.</p>
+ * <p> Costs compiled in a {@link CostTable} are read directly in the table
+ * for the chars of its alphabet.</p>
  *
  * @author Harald Kirsch
  * @author Micha&euml;l Michaud
@@ -17,6 +19,8 @@ package fr.michaelm.util.text.algo;
 public class WLevenshteinDistance implements StringDistance, EditDistance {
 
   private final LevenshteinCosts costs;
+  // substitution costs of the chars of the alphabet of a CostTable, or null
+  private final CostTable table;
 
   /**
    * <p>
@@ -26,6 +30,7 @@ public class WLevenshteinDistance implements StringDistance, EditDistance {
    */
   public WLevenshteinDistance() {
     this.costs = CostFunctions.defaultCosts;
+    this.table = null;
   }
 
   /**
@@ -39,6 +44,7 @@ public class WLevenshteinDistance implements StringDistance, EditDistance {
    */
   public WLevenshteinDistance(LevenshteinCosts c) {
     this.costs = c;
+    this.table = c instanceof CostTable ? (CostTable)c : null;
   }
 
   /**
@@ -46,27 +52,104 @@ public class WLevenshteinDistance implements StringDistance, EditDistance {
    * according to the cost function provided at construction of this object.</p>
    */
   public int editDistance(String v1, String v2) {
-    int m = v1.length() + 1;
-    int n = v2.length() + 1;
-    int[][] d = new int[m][n];
+    return editDistance(v1, v2, Integer.MAX_VALUE);
+  }
 
+  /**
+   * <p> Computes the Levenshtein edit distance between the given strings if
+   * it is lower than limit, and returns limit otherwise.</p>
+   * <p> If no insertion or deletion is free, a cell of the matrix at k cells
+   * from the diagonal costs at least k (the first row and the first column
+   * cost 1 per char), so that only a diagonal band of the matrix is computed.
+   * The computation stops as soon as no cell of a row can lead to a distance
+   * lower than the limit, the remaining length difference costing at least
+   * the cheapest insertion or deletion per char.</p>
+   * <p> Only two rows of the matrix are kept, with the insertion and deletion
+   * costs of the chars of both strings, and the ids of the chars of v2 in
+   * the CostTable, in arrays reused by each thread.</p>
+   */
+  public int editDistance(String v1, String v2, int limit) {
+    int m = v1.length();
+    int n = v2.length();
+    if (limit <= 0) return limit;
+    if (m == 0 && n == 0) return 0;
+    Scratch scratch = SCRATCH.get().ensure(m, n);
+    int[] del = scratch.del;
+    int[] ins = scratch.ins;
+    int minCost = Integer.MAX_VALUE;
     for(int i = 0; i < m; i++)
-      d[i][0] = i;
-    for(int i = 1; i < n; i++)
-      d[0][i] = i;
+      minCost = Math.min(minCost, del[i] = costs.insDelCost(v1.charAt(i)));
+    for(int j = 0; j < n; j++)
+      minCost = Math.min(minCost, ins[j] = costs.insDelCost(v2.charAt(j)));
+    // ids of the chars of v2 in the table (-1 without table)
+    int[] ids = scratch.ids;
+    for(int j = 0; j < n; j++)
+      ids[j] = table == null ? -1 : table.id(v2.charAt(j));
+    short[] subst = table == null ? null : table.subst;
+    int size = table == null ? 0 : table.size();
+    if (minCost < 0) minCost = 0;
+    // cells farther than band from the diagonal cost at least limit
+    int band = Math.min(minCost == 0 ? Integer.MAX_VALUE : limit - 1, Math.max(m, n));
+    if (Math.abs(m - n) > band) return limit;
 
-    for(int i = 1; i < m; i++) {
+    int[] previous = scratch.previous;
+    int[] current = scratch.current;
+    for(int j = 0, last = Math.min(n, band); j <= last; j++)
+      previous[j] = Math.min(j, limit);
+    if (band < n) previous[band + 1] = limit;
+
+    for(int i = 1; i <= m; i++) {
       char ch1 = v1.charAt(i - 1);
-      for(int j = 1; j < n; j++) {
-        char ch2 = v2.charAt(j - 1);
-        int subst = d[i - 1][j - 1] + costs.substCost(ch1, ch2);
-        int delete = d[i - 1][j] + costs.insDelCost(ch1);
-        int insert = d[i][j - 1] + costs.insDelCost(ch2);
-        d[i][j] = Math.min(Math.min(subst, delete), insert);
+      int delCost = del[i - 1];
+      int row = table == null ? -1 : table.id(ch1) * size;
+      int first = Math.max(1, i - band);
+      int last = Math.min(n, i + band);
+      current[first - 1] = first == 1 ? Math.min(i, limit) : limit;
+      int best = first == 1 ? Math.min(i + (minCost == 0 ? 0 : Math.abs(m - i - n)), limit) : limit;
+      for(int j = first; j <= last; j++) {
+        int id = ids[j - 1];
+        int substitute = previous[j - 1] + (row >= 0 && id >= 0 ?
+            subst[row + id] : costs.substCost(ch1, v2.charAt(j - 1)));
+        int delete = previous[j] + delCost;
+        int insert = current[j - 1] + ins[j - 1];
+        int min = Math.min(Math.min(Math.min(substitute, delete), insert), limit);
+        current[j] = min;
+        long bound = min + (long)Math.abs(m - i - n + j) * minCost;
+        if (bound < best) best = (int)bound;
+      }
+      if (best >= limit) return limit;
+      if (last < n) current[last + 1] = limit;
+      int[] tmp = previous;
+      previous = current;
+      current = tmp;
+    }
+    return previous[n];
+  }
+
+  private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+  /**
+   * Rows of the matrix and costs of the chars of the compared strings, kept
+   * by each thread and grown as needed.
+   */
+  private static final class Scratch {
+    int[] previous = new int[0];
+    int[] current = new int[0];
+    int[] del = new int[0];
+    int[] ins = new int[0];
+    int[] ids = new int[0];
+
+    Scratch ensure(int m, int n) {
+      if (previous.length <= n) {
+        int size = Math.max(n + 1, 2 * previous.length);
+        previous = new int[size];
+        current = new int[size];
+        ins = new int[size];
+        ids = new int[size];
       }
+      if (del.length < m) del = new int[Math.max(m, 2 * del.length)];
+      return this;
     }
-    //System.out.printf("%s--%s: %d%n", v1, v2, d[m-1][n-1]);
-    return d[m - 1][n - 1];
   }
   
   /**
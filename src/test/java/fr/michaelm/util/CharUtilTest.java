@@ -20,6 +20,8 @@ public class CharUtilTest extends AbstractTest {
         //printTable("windows-1252", CP1252_TO_ASCII38);
         transposeTest();
         userTableTest();
+        foldTest();
+        createFoldingTableTest();
     }
 
     private void currentCodePageCharactersTest() {
@@ -47,4 +49,43 @@ public class CharUtilTest extends AbstractTest {
         } catch(java.io.UnsupportedEncodingException uee) {}
     }
 
+    private void foldTest() {
+        try {
+            // windows-1252 characters are folded as with transpose
+            for (int i = 0 ; i < 256 ; i++) {
+                String s = new String(new byte[]{(byte)i}, "windows-1252");
+                if (s.charAt(0) == '\uFFFD') continue;
+                if (!fold(s, UNICODE_TO_ASCII).equals(transpose(s, "windows-1252", CP1252_TO_ASCII)) ||
+                    !fold(s, UNICODE_TO_ASCII38).equals(transpose(s, "windows-1252", CP1252_TO_ASCII38))) {
+                    assertEquals("cp1252 " + i, fold(s, UNICODE_TO_ASCII), transpose(s, "windows-1252", CP1252_TO_ASCII));
+                }
+            }
+        } catch(java.io.UnsupportedEncodingException uee) {}
+        assertEquals(fold("Kraków, Gdańsk, Łódź", UNICODE_TO_ASCII), "Krakow, Gdansk, Lodz");
+        assertEquals(fold("Thành phố Hồ Chí Minh", UNICODE_TO_ASCII), "Thanh pho Ho Chi Minh");
+        assertEquals(fold("Kêr-Ys, Plougastell-Daoulaz", UNICODE_TO_ASCII38), "KER YS/ PLOUGASTELL DAOULAZ");
+        assertEquals(fold("Θεσσαλονίκη", UNICODE_TO_ASCII), "Thessaloniki");
+        assertEquals(fold("Санкт-Петербург", UNICODE_TO_ASCII), "Sankt-Peterburg");
+        assertEquals(fold("Київ", UNICODE_TO_ASCII), "Kiyiv");
+        assertEquals(fold("ΘΕΟΣ", UNICODE_TO_ASCII38), "THEOS");
+        // decomposed (NFD) strings are folded as precomposed ones
+        assertEquals(fold("e\u0301cole", UNICODE_TO_ASCII), "ecole");
+        assertEquals(fold("e\u0301cole", UNICODE_TO_ASCII38), "ECOLE");
+        assertEquals(fold("\uFB01let", UNICODE_TO_ASCII), "filet");
+        assertEquals(fold("\u4E2D", UNICODE_TO_ASCII), "?");
+        assertEquals(fold("a\uD83D\uDE00b", UNICODE_TO_ASCII), "a??b");
+    }
+
+    private void createFoldingTableTest() {
+        try {
+            String[][] table = createFoldingTable("windows-1252", CP1252_TO_ASCII38);
+            int diff = 0;
+            for (int c = 0 ; c < 65536 ; c++) {
+                String s = String.valueOf((char)c);
+                if (!fold(s, table).equals(transpose(s, "windows-1252", CP1252_TO_ASCII38))) diff++;
+            }
+            assertEquals("fold/transpose differences", diff, 0);
+        } catch(java.io.UnsupportedEncodingException uee) {}
+    }
+
 }
@@ -17,8 +17,12 @@ public class StringUtilTest extends AbstractTest {
         equalsTest();
         normalizeTest();
         splitTest();
+        splitOffsetsTest();
+        fieldSliceTest();
         cp1252toASCIITest();
         cp1252toASCII38Test();
+        unicodeToASCIITest();
+        batchTest();
         inverseStringLengthSortTest();
         removeParenthesisTest();
     }
@@ -51,6 +55,15 @@ public class StringUtilTest extends AbstractTest {
         assertEquals(normalize("abc   "), "abc");
         assertEquals(normalize("a   b   c"), "a b c");
         assertEquals(normalize("   a   b   c   "), "a b c");
+        assertEquals(normalize("\ta  b\t"), "a b");
+        assertEquals(normalize("a  \t  b"), "a \t b");
+        String normalized = "a b c";
+        assertTrue(normalize(normalized) == normalized);
+        // CharSequence variants
+        String n = "a b c";
+        assertTrue(normalize((CharSequence)n) == n);
+        assertEquals(normalize((CharSequence)new StringBuilder("\t a  b ")), "a b");
+        assertEquals(normalize("  a  b ", new StringBuilder("x:")).toString(), "x:a b");
     }
 
     private void splitTest() {
@@ -62,6 +75,37 @@ public class StringUtilTest extends AbstractTest {
         assertEquals(split(row, '\t', true)[2], "ghi");
         assertEquals(split(row, '\t', false)[3], "");
         assertEquals(split(row, '\t', true)[3], "");
+        CharSequence cs = new StringBuilder(row);
+        assertEquals(split(cs, '\t', true)[2], "ghi");
+        assertEquals(split(cs, '\t', false).length, 4);
+    }
+
+    private void splitOffsetsTest() {
+        String row = "abc\tdef\t   ghi   \t";
+        int[] offsets = new int[8];
+        assertEquals(split(row, '\t', false, offsets), 4);
+        assertEquals(row.substring(offsets[4], offsets[5]), "   ghi   ");
+        assertEquals(split(row, '\t', true, offsets), 4);
+        assertEquals(row.substring(offsets[4], offsets[5]), "ghi");
+        assertEquals(offsets[6], offsets[7]);
+        // buffer too small : total number of fields is still returned
+        assertEquals(split(row, '\t', false, new int[2]), 4);
+        assertEquals(split("", '\t', false, offsets), 1);
+    }
+
+    private void fieldSliceTest() {
+        FieldSlice slice = new FieldSlice(1);
+        slice.split("abc;def;;ghi", ';', false);
+        assertEquals(slice.size(), 4);
+        assertEquals(slice.getString(1), "def");
+        assertEquals(slice.length(2), 0);
+        assertTrue(slice.contentEquals(3, "ghi"));
+        slice.split(new StringBuilder(" a ; b "), ';', true);
+        assertEquals(slice.size(), 2);
+        assertEquals(slice.getString(0), "a");
+        assertEquals(slice.charAt(1, 0), 'b');
+        assertEquals(java.util.Arrays.asList(slice.toArray()),
+                     java.util.Arrays.asList(split(" a ; b ", ';', true)));
     }
 
     private void cp1252toASCIITest() {
@@ -72,6 +116,32 @@ public class StringUtilTest extends AbstractTest {
         assertEquals(cp1252toASCII38("Michaël Michaud"), "MICHAEL MICHAUD");
     }
 
+    private void unicodeToASCIITest() {
+        assertEquals(unicodeToASCII("Michaël Michaud"), "Michael Michaud");
+        assertEquals(unicodeToASCII("Łódź Wrocław"), "Lodz Wroclaw");
+        assertEquals(unicodeToASCII("Hà Nội"), "Ha Noi");
+        assertEquals(unicodeToASCII38("Œuvre à Đà Nẵng"), "OEUVRE A DA NANG");
+        assertEquals(unicodeToASCII38("Αθήνα Москва"), "ATHINA MOSKVA");
+    }
+
+    private void batchTest() {
+        String[] values = new String[10000];
+        for (int i = 0 ; i < values.length ; i++) {
+            values[i] = randomString(12, "  aeéèçœ");
+        }
+        String[] normalized = normalize(values, null, true);
+        String[] ascii38 = cp1252toASCII38(java.util.Arrays.asList(values), null, false);
+        boolean ok = true;
+        for (int i = 0 ; i < values.length ; i++) {
+            ok &= normalized[i].equals(normalize(values[i]));
+            ok &= ascii38[i].equals(cp1252toASCII38(values[i]));
+        }
+        assertTrue("batch results equal single value results", ok);
+        String[] copy = values.clone();
+        cp1252toASCII(copy, copy, true);
+        assertEquals(copy[42], cp1252toASCII(values[42]));
+    }
+
     private void inverseStringLengthSortTest() {
         String[] array = new String[]{"abcd", "ab", "œ", "poiuyt", "nhfr"};
         java.util.Arrays.sort(array, INVERSE_STRING_LENGTH);
@@ -86,6 +156,12 @@ public class StringUtilTest extends AbstractTest {
         assertEquals(removeParenthesis("abcd (efg) (hij)"), "abcd  ");
         assertEquals(removeParenthesis("abcd (efg) (hij) klm"), "abcd   klm");
         assertEquals(removeParenthesis("abcd (efg (hij))"), "abcd ");
+        assertEquals(removeParenthesis("(efg (hij) klm) abcd"), " abcd");
+        // CharSequence variants
+        String s = "abcd efg";
+        assertTrue(removeParenthesis((CharSequence)s) == s);
+        assertEquals(removeParenthesis((CharSequence)new StringBuilder("a(b)c")), "ac");
+        assertEquals(removeParenthesis("a (b) c", new StringBuilder("x:")).toString(), "x:a  c");
     }
 
 }
@@ -6,11 +6,17 @@ package fr.michaelm.util;
 
 
 import fr.michaelm.util.text.AbstractRuleTest;
+import fr.michaelm.util.text.CachingRuleTest;
+import fr.michaelm.util.text.DSVLanguageTaggerTest;
+import fr.michaelm.util.text.LanguageModelTest;
 import fr.michaelm.util.text.LanguageTest;
 import fr.michaelm.util.text.ReplacePatternRuleSetTest;
 import fr.michaelm.util.text.ReplacePatternRuleTest;
+import fr.michaelm.util.text.RuleBundleTest;
+import fr.michaelm.util.text.RuleRegistryTest;
 import fr.michaelm.util.text.algo.BKTreeTest;
 import fr.michaelm.util.text.algo.DamarauLevenshteinDistanceTest;
+import fr.michaelm.util.text.algo.LevenshteinDistanceTest;
 import fr.michaelm.util.text.algo.WLevenshteinDistanceTest;
 
 public class UtilTest extends AbstractTest {
@@ -29,13 +35,19 @@ public class UtilTest extends AbstractTest {
         new AbstractRuleTest();
         new ReplacePatternRuleTest();
         new ReplacePatternRuleSetTest();
+        new CachingRuleTest();
+        new RuleBundleTest();
+        new RuleRegistryTest();
         
         new WLevenshteinDistanceTest();
         new BKTreeTest();
         
         new DamarauLevenshteinDistanceTest();
+        new LevenshteinDistanceTest();
         
         new LanguageTest();
+        new LanguageModelTest();
+        new DSVLanguageTaggerTest();
         
     }
 
@@ -0,0 +1,87 @@
+/*
+ * (C) 2026 michael.michaud@free.fr
+ */
+
+package fr.michaelm.util.text;
+
+import fr.michaelm.util.AbstractTest;
+
+/**
+ * Test class for CachingRule
+ *
+ * @author Micha&euml;l Michaud
+ * @version 0.1 (2026-10-19)
+ */
+public class CachingRuleTest extends AbstractTest {
+
+    public static void main(String[] args) {
+        new CachingRuleTest();
+    }
+
+    protected void maintest() throws Exception {
+        cacheTest();
+        evictionTest();
+        registryTest();
+    }
+
+    private void cacheTest() throws Exception {
+        final int[] calls = new int[1];
+        Rule rule = new AbstractRule() {
+            public String transform(String s, Object context) {
+                calls[0]++;
+                if (s == null) return null;
+                return context == null ? s.toLowerCase() : s + " (" + context + ")";
+            }
+        };
+        CachingRule cache = new CachingRule(rule, 100);
+        assertEquals("rue de la gare", cache.transform("RUE DE LA GARE"));
+        assertEquals("rue de la gare", cache.transform("RUE DE LA GARE"));
+        assertEquals("rue de la gare", cache.transform("RUE DE LA GARE", null));
+        assertEquals(1, calls[0]);
+        assertEquals(2L, cache.getHitCount());
+        assertEquals(1L, cache.getMissCount());
+        // transformations with a context are not cached
+        assertEquals("RUE (x)", cache.transform("RUE", "x"));
+        assertEquals("RUE (x)", cache.transform("RUE", "x"));
+        assertEquals(3, calls[0]);
+        assertEquals(1, cache.size());
+        assertNull(cache.transform(null));
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0L, cache.getHitCount());
+    }
+
+    private void evictionTest() throws Exception {
+        CachingRule cache = new CachingRule(RuleRegistry.TO_LOWERCASE, 64);
+        for (int i = 0 ; i < 1000 ; i++) cache.transform("RUE " + i);
+        assertTrue(cache.size() <= 64);
+        assertTrue(cache.size() > 0);
+        assertEquals("rue 999", cache.transform("RUE 999"));
+        assertEquals(1L, cache.getHitCount());
+        cache = new CachingRule(RuleRegistry.TO_LOWERCASE, 1);
+        cache.transform("A");
+        cache.transform("B");
+        assertEquals(1, cache.size());
+        // the cache never keeps more than maxSize results
+        for (int maxSize : new int[]{17, 100, 1000}) {
+            cache = new CachingRule(RuleRegistry.TO_LOWERCASE, maxSize);
+            for (int i = 0 ; i < 10 * maxSize ; i++) cache.transform("RUE " + i);
+            assertTrue("size " + cache.size() + " > " + maxSize, cache.size() <= maxSize);
+        }
+    }
+
+    private void registryTest() throws Exception {
+        RuleRegistry.put("TO_LOWERCASE", RuleRegistry.TO_LOWERCASE);
+        CachingRule cache = RuleRegistry.enableCache("TO_LOWERCASE", 1000);
+        assertTrue(RuleRegistry.getRule("TO_LOWERCASE") == cache);
+        assertEquals("abc", RuleRegistry.transforms("ABC", "TO_LOWERCASE"));
+        assertEquals("abc", RuleRegistry.transforms("ABC", "TO_LOWERCASE"));
+        assertEquals(1L, cache.getHitCount());
+        // enabling the cache twice does not stack caches
+        cache = RuleRegistry.enableCache("TO_LOWERCASE", 10);
+        assertTrue(cache.getRule() == RuleRegistry.TO_LOWERCASE);
+        RuleRegistry.disableCache("TO_LOWERCASE");
+        assertTrue(RuleRegistry.getRule("TO_LOWERCASE") == RuleRegistry.TO_LOWERCASE);
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * (C) 2026 michael.michaud@free.fr
+ */
+
+package fr.michaelm.util.text;
+
+import fr.michaelm.util.AbstractTest;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test class for DSVLanguageTagger
+ *
+ * @author Micha&euml;l Michaud
+ * @version 0.1 (2026-10-19)
+ */
+public class DSVLanguageTaggerTest extends AbstractTest {
+
+    public static void main(String[] args) {
+        new DSVLanguageTaggerTest();
+    }
+
+    protected void maintest() throws Exception {
+        tagTest();
+    }
+
+    private void tagTest() throws Exception {
+        // a semicolon separated copy of the communes, with a blank line
+        List<String> names = new ArrayList<>();
+        BufferedReader br = new BufferedReader(new InputStreamReader(
+            new FileInputStream("src/test/resources/tests/m3/util/inseeCommunes.txt"), StandardCharsets.UTF_8));
+        String line;
+        while (null != (line = br.readLine())) {
+            if (line.length() > 0 && line.matches("^[0-9].*")) names.add(line.split("\t")[1]);
+        }
+        br.close();
+        File file = File.createTempFile("DSVLanguageTaggerTest", ".csv");
+        file.deleteOnExit();
+        BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(
+            new FileOutputStream(file), StandardCharsets.UTF_8));
+        bw.write("ID;NAME");
+        bw.newLine();
+        for (int i = 0 ; i < names.size() ; i++) {
+            bw.write(i + ";" + names.get(i));
+            bw.newLine();
+            if (i == 100) bw.newLine();
+        }
+        bw.close();
+        String output = new DSVLanguageTagger(file.getPath()).setField(1).setChunkSize(5000).tag();
+        File outputFile = new File(output);
+        outputFile.deleteOnExit();
+        assertTrue(output.endsWith("_language.csv"));
+        br = new BufferedReader(new InputStreamReader(
+            new FileInputStream(outputFile), StandardCharsets.UTF_8));
+        assertEquals("ID;NAME;LANGUAGE", br.readLine());
+        int diff = 0;
+        for (int i = 0 ; i < names.size() ; i++) {
+            String expected = i + ";" + names.get(i) + ";" + Language.guessLanguage(names.get(i)).getName();
+            if (!expected.equals(br.readLine())) diff++;
+            if (i == 100 && !"".equals(br.readLine())) diff++;
+        }
+        assertNull(br.readLine());
+        br.close();
+        assertEquals("differences between tagged file and guessLanguage", diff, 0);
+    }
+
+}
@@ -0,0 +1,117 @@
+/*
+ * (C) 2026 michael.michaud@free.fr
+ */
+
+package fr.michaelm.util.text;
+
+import fr.michaelm.util.AbstractTest;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Test class for LanguageModel
+ *
+ * @author Micha&euml;l Michaud
+ * @version 0.1 (2026-10-19)
+ */
+public class LanguageModelTest extends AbstractTest {
+
+    private static final String COMMUNES = "src/test/resources/tests/m3/util/inseeCommunes.txt";
+
+    public static void main(String[] args) {
+        new LanguageModelTest();
+    }
+
+    protected void maintest() throws Exception {
+        trainTest();
+        distributionTest();
+    }
+
+    private void trainTest() throws Exception {
+        // communes labelled by guessLanguage, in a UTF-8 file
+        List<String> names = new ArrayList<>();
+        BufferedReader br = new BufferedReader(new InputStreamReader(
+            new FileInputStream(COMMUNES), StandardCharsets.UTF_8));
+        String line;
+        while (null != (line = br.readLine())) {
+            if (line.length() > 0 && line.matches("^[0-9].*")) names.add(line.split("\t")[1]);
+        }
+        br.close();
+        File labelled = File.createTempFile("LanguageModelTest", ".txt");
+        labelled.deleteOnExit();
+        BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(
+            new FileOutputStream(labelled), StandardCharsets.UTF_8));
+        for (int i = 0 ; i < names.size() ; i++) {
+            bw.write(i + "\t" + names.get(i) + "\t" + Language.guessLanguage(names.get(i)).getName());
+            bw.newLine();
+        }
+        bw.close();
+        LanguageModel model = LanguageModel.train(labelled);
+        assertTrue(Arrays.asList(model.getLanguages()).contains(Language.BRETON));
+        // most of the toponyms get the label of guessLanguage
+        int count = 0, same = 0;
+        for (String name : names) {
+            count++;
+            if (model.guess(name) == Language.guessLanguage(name)) same++;
+        }
+        System.out.println("LanguageModel : " + same + "/" + count + " toponyms labelled as guessLanguage");
+        assertTrue(same > 0.9 * count);
+        // the model can be written and read back
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        model.write(os);
+        LanguageModel copy = LanguageModel.read(new ByteArrayInputStream(os.toByteArray()));
+        float[] expected = new float[model.size()];
+        float[] actual = new float[copy.size()];
+        for (String s : new String[]{"Kerlouan", "Mulhouse", "Figeac", ""}) {
+            model.distribution(s, expected);
+            copy.distribution(s, actual);
+            assertTrue(Arrays.equals(expected, actual));
+        }
+    }
+
+    private void distributionTest() throws Exception {
+        LanguageModel.Trainer trainer = new LanguageModel.Trainer(3, 10);
+        for (String s : new String[]{"Kerbrat", "Kerlouan", "Plouguerneau", "Ploudalmézeau"}) {
+            trainer.add(s, Language.BRETON);
+        }
+        for (String s : new String[]{"Figeac", "Aurillac", "Cognac", "Peyrac"}) {
+            trainer.add(s, Language.OCCITAN);
+        }
+        trainer.add("Gascognac", Language.GASCON);
+        LanguageModel model = trainer.build();
+        assertEquals(3, model.size());
+        assertEquals(Language.BRETON, model.guess("Kerguen"));
+        assertEquals(Language.OCCITAN, model.guess("Lunac"));
+        float[] probabilities = new float[model.size()];
+        model.distribution("Plouvignac", probabilities);
+        float sum = 0;
+        for (float p : probabilities) sum += p;
+        assertTrue(Math.abs(sum - 1) < 1e-5);
+        int[] ranking = new int[model.size()];
+        LanguageModel.rank(probabilities, ranking);
+        for (int i = 1 ; i < ranking.length ; i++) {
+            assertTrue(probabilities[ranking[i - 1]] >= probabilities[ranking[i]]);
+        }
+        // gascon is a sub-language of occitan
+        int occitan = Arrays.asList(model.getLanguages()).indexOf(Language.OCCITAN);
+        int gascon = Arrays.asList(model.getLanguages()).indexOf(Language.GASCON);
+        assertTrue(Math.abs(model.getProbability(Language.OCCITAN, probabilities)
+            - probabilities[occitan] - probabilities[gascon]) < 1e-6);
+        assertTrue(Math.abs(model.getProbability(Language.ROMAN, probabilities)
+            - probabilities[occitan] - probabilities[gascon]) < 1e-6);
+        assertEquals(Language.GASCON, Language.forName("Gascon"));
+    }
+
+}
@@ -21,6 +21,8 @@ import static fr.michaelm.util.text.Language.*;
  */
 // History
 // 0.1 (2011-08-09)
+// 0.2 (2026-10-19) add singlePassTest
+// 0.3 (2026-10-19) add includes tests
 public class LanguageTest extends AbstractTest {
 
     public static void main(String[] args) {
@@ -35,6 +37,7 @@ public class LanguageTest extends AbstractTest {
         testConstructor();
         areComparableTest();
         guessLanguageTest();
+        singlePassTest();
     }
     
     public void testConstructor() {
@@ -52,6 +55,12 @@ public class LanguageTest extends AbstractTest {
         assertTrue(areComparable(Language.CORSE, Language.ROMAN));
         assertFalse(areComparable(Language.ROMAN, Language.CELTE));   
         assertFalse(areComparable(Language.BRETON, Language.CORSE));
+        assertTrue(areComparable(Language.INDO_EUROPEEN, Language.GASCON));
+        assertFalse(areComparable(Language.BASQUE, Language.GASCON));
+        assertTrue(Language.OCCITAN.includes(Language.GASCON));
+        assertTrue(Language.OCCITAN.includes(Language.OCCITAN));
+        assertFalse(Language.GASCON.includes(Language.OCCITAN));
+        assertFalse(Language.CATALAN.includes(Language.GASCON));
     }
     
     public void guessLanguageTest() throws Exception {
@@ -76,5 +85,29 @@ public class LanguageTest extends AbstractTest {
         bw.close();
         assertTrue(new File("src/test/resources/tests/m3/util/inseeCommunesGuessLanguage.txt").exists());
     }
+
+    public void singlePassTest() throws Exception {
+        assertTrue(Language.isSinglePass());
+        // the first pattern found is the one with the highest priority,
+        // not the first one found in the string
+        assertEquals(Language.GERMANIQUE, guessLanguage("Kerholtz"));
+        assertEquals(Language.BRETON, guessLanguage("Kerlouan"));
+        assertEquals(Language.UNKNOWN, guessLanguage(""));
+        // strings which cannot be searched in a single pass
+        assertEquals(Language.GERMANIQUE, guessLanguage("Sch\u0301oenau\uD800"));
+        BufferedReader br = new BufferedReader(new FileReader("src/test/resources/tests/m3/util/inseeCommunes.txt"));
+        String line;
+        int diff = 0;
+        while (null != (line = br.readLine())) {
+            if (line.length() > 0 && line.matches("^[0-9].*")) {
+                String name = line.split("\t")[1];
+                if (guessLanguage(name) != guessLanguageSequentially(name)) diff++;
+                name = name.toUpperCase();
+                if (guessLanguage(name) != guessLanguageSequentially(name)) diff++;
+            }
+        }
+        br.close();
+        assertEquals("differences between single pass and sequential guesses", diff, 0);
+    }
     
 }
@@ -6,6 +6,11 @@ package fr.michaelm.util.text;
 
 import fr.michaelm.util.*;
 import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Test class for ReplacePatternRuleSet
@@ -15,6 +20,7 @@ import java.io.*;
  */
 // History
 // 0.1 (2011-05-01)
+// 0.2 (2026-10-19) word boundaries in optimized rule sets
 public class ReplacePatternRuleSetTest extends AbstractTest {
 
     public static void main(String[] args) {
@@ -24,6 +30,11 @@ public class ReplacePatternRuleSetTest extends AbstractTest {
     protected void maintest() throws Exception {
         testReplacePatternRuleSet();
         testReplacePatternRuleSetFromFile();
+        testCompile();
+        testCompileFromFile();
+        testProfiling();
+        testOptimizer();
+        testBatch();
         //testCaseInsensitive();
         //testFrench();
         //performanceTest();
@@ -62,5 +73,172 @@ public class ReplacePatternRuleSetTest extends AbstractTest {
         bw.close();
         assertTrue(new File("src/test/resources/tests/m3/util/inseeCommunesPhonetic.txt").exists());
     }
-    
+
+    private void testCompile() throws Exception {
+        ReplacePatternRuleSet rprs = new ReplacePatternRuleSet(new String[][]{
+            {"AI", "e"}, {"AU", "o"}, {"[SZ]", "s"}, {"CH|C", "k"},
+            {"IE", "ie"}, {"EI", "e"}, {"\\bX", "ks"}, {"X", "ks"}, {"Y", "i"}
+        });
+        ReplacePatternRuleSet compiled = rprs.compile();
+        java.util.Iterator<Rule> it = compiled.getRuleIterator();
+        assertTrue(it.next() instanceof LiteralReplaceRuleGroup);
+        String[] words = new String[]{"CHAISE", "AIEI", "IEIE", "XAUZY", "YX X", "", "BOB"};
+        for (String w : words) {
+            assertEquals(w, rprs.transform(w), compiled.transform(w));
+        }
+    }
+
+    private void testCompileFromFile() throws Exception {
+        ReplacePatternRuleSet rprs = new ReplacePatternRuleSet("src/test/resources/rules/phonetique.txt");
+        ReplacePatternRuleSet compiled = rprs.compile();
+        BufferedReader br = new BufferedReader(new FileReader("src/test/resources/tests/m3/util/inseeCommunes.txt"));
+        String line;
+        int diff = 0;
+        while (null != (line = br.readLine())) {
+            if (line.length() > 0 && line.matches("^[0-9].*")) {
+                String s = StringUtil.cp1252toASCII38(line.split("\t")[1]);
+                if (!rprs.transform(s).equals(compiled.transform(s))) diff++;
+            }
+        }
+        br.close();
+        assertEquals("differences between compiled and sequential rules", diff, 0);
+    }
+
+    private void testProfiling() throws Exception {
+        ReplacePatternRuleSet rprs = new ReplacePatternRuleSet(new String[][]{
+            {"AI", "e"}, {"AU", "o"}, {"Z", "s"}
+        });
+        assertTrue(!rprs.isProfiling());
+        assertNull(rprs.getProfile());
+        rprs.setProfiling(true);
+        assertEquals("Mes o bse", rprs.transform("MAIs AU bZe"));
+        assertEquals("BOB", rprs.transform("BOB"));
+        RuleProfile profile = rprs.getProfile();
+        assertEquals(3, profile.getRuleCount());
+        assertEquals(2L, profile.getInvocations()[0]);
+        assertEquals(1L, profile.getMatches()[0]);
+        assertEquals(1L, profile.getMatches()[2]);
+        assertTrue(profile.getTotalNanos() > 0);
+        System.out.print(profile.getReport());
+        // the profile is kept when profiling is switched on again
+        rprs.setProfiling(true);
+        assertTrue(profile == rprs.getProfile());
+        assertEquals("RuleProfile", profile.register("test").getKeyProperty("type"));
+        profile.reset();
+        assertEquals(0L, profile.getInvocations()[0]);
+        rprs.setProfiling(false);
+        assertNull(rprs.getProfile());
+        assertEquals("o", rprs.transform("AU"));
+    }
+
+    private void testOptimizer() throws Exception {
+        ReplacePatternRuleSet rprs = new ReplacePatternRuleSet(new String[][]{
+            {"É", "E"},           // dead after TO_ASCII38
+            {"AU", "o"}, {"Y", "i"},
+            {"[CK]H", "k"},       // commutes with the previous rule
+            {"OU", "u"},          // can be moved next to AU
+            {"y", "i"},           // dead : no lowercase y after TO_ASCII38
+            {"[À-Ý]+", "?"}       // dead after TO_ASCII38
+        });
+        BitSet all = new BitSet();
+        all.set(0, Character.MAX_VALUE + 1);
+        BitSet ascii38 = RuleSetOptimizer.imageOf(RuleRegistry.TO_ASCII38, all);
+        RuleSetOptimizer optimizer = new RuleSetOptimizer(ascii38);
+        ReplacePatternRuleSet optimized = optimizer.optimize(rprs);
+        assertEquals(3, optimizer.getDeadRules().size());
+        assertEquals(1, optimizer.getMovedRuleCount());
+        String[] words = new String[]{"CHAUY", "KHOUY", "LOUCHY", "LOUKAU", ""};
+        for (String w : words) {
+            assertEquals(w, rprs.transform(w), optimized.transform(w));
+        }
+        assertTrue(optimized.transform("ÉTÉ").equals("ÉTÉ"));
+        // é is a word character for \b before java 19 only : the rules are
+        // not reordered, whatever the java version running the optimizer
+        rprs = new ReplacePatternRuleSet(new String[][]{
+            {"q", "k"}, {"\\bb", "X"}, {"é", "a"}
+        });
+        optimizer = new RuleSetOptimizer(all);
+        optimized = optimizer.optimize(rprs);
+        assertEquals(0, optimizer.getMovedRuleCount());
+        assertEquals(rprs.transform("éb"), optimized.transform("éb"));
+        assertEquals(rprs.transform("a éb"), optimized.transform("a éb"));
+        // e is a word character for any java version
+        rprs = new ReplacePatternRuleSet(new String[][]{
+            {"q", "k"}, {"\\bb", "X"}, {"e", "a"}
+        });
+        optimizer = new RuleSetOptimizer(all);
+        optimized = optimizer.optimize(rprs);
+        assertEquals(1, optimizer.getMovedRuleCount());
+        assertEquals(rprs.transform("eb"), optimized.transform("eb"));
+        // same results on the reference corpus
+        rprs = new ReplacePatternRuleSet("src/test/resources/rules/phonetique.txt");
+        optimizer = new RuleSetOptimizer(ascii38);
+        optimized = optimizer.optimize(rprs);
+        BufferedReader br = new BufferedReader(new FileReader("src/test/resources/tests/m3/util/inseeCommunes.txt"));
+        String line;
+        int diff = 0;
+        while (null != (line = br.readLine())) {
+            if (line.length() > 0 && line.matches("^[0-9].*")) {
+                String s = StringUtil.cp1252toASCII38(line.split("\t")[1]);
+                if (!rprs.transform(s).equals(optimized.transform(s))) diff++;
+            }
+        }
+        br.close();
+        assertEquals("differences between optimized and sequential rules", diff, 0);
+    }
+
+    private void testBatch() throws Exception {
+        ReplacePatternRuleSet rprs = new ReplacePatternRuleSet("src/test/resources/rules/phonetique.txt");
+        ReplacePatternRuleSet compiled = rprs.compile();
+        ReplacePatternRuleSet maxLength = new ReplacePatternRuleSet(
+            "src/test/resources/rules/phonetique.txt", new RuleSet.MaxLengthCondition(6));
+        List<String> list = new ArrayList<>();
+        BufferedReader br = new BufferedReader(new FileReader("src/test/resources/tests/m3/util/inseeCommunes.txt"));
+        String line;
+        while (null != (line = br.readLine())) {
+            if (line.length() > 0 && line.matches("^[0-9].*")) {
+                list.add(StringUtil.cp1252toASCII38(line.split("\t")[1]));
+            }
+        }
+        br.close();
+        String[] in = list.toArray(new String[0]);
+        for (RuleSet rs : new RuleSet[]{rprs, compiled, maxLength}) {
+            String[] expected = new String[in.length];
+            for (int i = 0 ; i < in.length ; i++) expected[i] = rs.transform(in[i]);
+            String[] out = new String[in.length];
+            rs.transformAll(in, out);
+            assertTrue(Arrays.equals(expected, out));
+            out = new String[in.length];
+            rs.parallelTransformAll(in, out);
+            assertTrue(Arrays.equals(expected, out));
+            assertTrue(Arrays.equals(expected,
+                rs.transformAll(list.parallelStream()).toArray(String[]::new)));
+        }
+        // in place, with offsets
+        String[] words = new String[]{"X", "PHARE", "CHAUX", "X"};
+        compiled.transformAll(words, 1, words, 1, 2);
+        assertEquals("X", words[0]);
+        assertEquals(compiled.transform("PHARE"), words[1]);
+        assertEquals(compiled.transform("CHAUX"), words[2]);
+        // exceptions
+        Rule failing = new AbstractRule() {
+            public String transform(String s, Object context) throws TransformationException {
+                if (s.equals("?")) throw new TransformationException("cannot transform ?");
+                return s;
+            }
+        };
+        try {
+            failing.parallelTransformAll(new String[]{"a", "?"}, new String[2]);
+            assertTrue(false);
+        } catch(TransformationException e) {
+            assertEquals("cannot transform ?", e.getMessage());
+        }
+        try {
+            failing.transformAll(Stream.of("a", "?")).toArray();
+            assertTrue(false);
+        } catch(UncheckedTransformationException e) {
+            assertEquals("cannot transform ?", e.getCause().getMessage());
+        }
+    }
+
 }
@@ -23,6 +23,9 @@ public class ReplacePatternRuleTest extends AbstractTest {
 
     protected void maintest() throws Exception {
         testReplacePatternRule();
+        testPrefilter();
+        testReplacement();
+        testLinearEngine();
         //testCaseInsensitive();
         //testFrench();
         //performanceTest();
@@ -47,4 +50,131 @@ public class ReplacePatternRuleTest extends AbstractTest {
         assertEquals("tot?", rpr.transform("toto"));
         assertEquals("tot?", rpr.transform("toto", null));
     }
+
+    private void testPrefilter() throws Exception {
+        // literal pattern
+        ReplacePatternRule rpr = new ReplacePatternRule("SAINT","ST");
+        String s = "NOTRE DAME";
+        assertTrue(s == rpr.transform(s));
+        assertEquals("ST DENIS", rpr.transform("SAINT DENIS"));
+        // first character set
+        assertNotNull(PatternPrefilter.of(Pattern.compile("\\b(LE|LA|LES) ")));
+        rpr = new ReplacePatternRule("\\b(LE|LA|LES) ","");
+        s = "SAINT DENIS";
+        assertTrue(s == rpr.transform(s));
+        assertEquals("HAVRE", rpr.transform("LE HAVRE"));
+        rpr = new ReplacePatternRule("(?<=[AEIOU])S(?=[AEIOU])","Z");
+        s = "MAISON";
+        assertEquals("MAIZON", rpr.transform(s));
+        s = "MAIRIE";
+        assertTrue(s == rpr.transform(s));
+        rpr = new ReplacePatternRule("[0-9]+(ER|E)?","#");
+        assertEquals("# RUE", rpr.transform("1ER RUE"));
+        s = "RUE";
+        assertTrue(s == rpr.transform(s));
+        // case insensitive patterns, including unicode case folding
+        rpr = new ReplacePatternRule(Pattern.compile("x?s", Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE),"_");
+        assertEquals("_", rpr.transform("S"));
+        assertEquals("_", rpr.transform("\u017F"));
+        rpr = new ReplacePatternRule("(?i)ab","_");
+        assertEquals("_c", rpr.transform("aBc"));
+        // no prefilter for patterns which may match an empty string or any character
+        assertNull(PatternPrefilter.of(Pattern.compile("A*")));
+        assertNull(PatternPrefilter.of(Pattern.compile("^")));
+        assertNull(PatternPrefilter.of(Pattern.compile("(A|B?)C?")));
+        assertNull(PatternPrefilter.of(Pattern.compile(".A")));
+        assertNull(PatternPrefilter.of(Pattern.compile("[^A]")));
+        assertNull(PatternPrefilter.of(Pattern.compile("\\wA")));
+        // the prefilter never rejects a string containing a match
+        String[] patterns = new String[]{"\\bST?E?\\b", "(?:L'|D')?[AEIOU]+", "X{2,}|Y{1}", "\\Q.*\\E",
+            "A?B?C", "(?<n>[a-c])\\k<n>", "[-\\]]", "\\$\\d", "(?i:e)x"};
+        String[] inputs = new String[]{"ST", "STE", "L'EAU", "XX", "Y", "a.*b", "C", "bb", "-", "]", "$1", "Ex", "eX"};
+        for (String p : patterns) {
+            PatternPrefilter prefilter = PatternPrefilter.of(Pattern.compile(p));
+            assertNotNull(prefilter);
+            for (String input : inputs) {
+                if (Pattern.compile(p).matcher(input).find()) assertTrue(prefilter.mayMatch(input));
+            }
+        }
+    }
+
+    private void testReplacement() throws Exception {
+        ReplacePatternRule rpr = new ReplacePatternRule("(\\w+)-(\\w+)","$2 $1");
+        assertEquals("B A, D C", rpr.transform("A-B, C-D"));
+        // $12 refers to group 1 followed by 2 when there is no group 12
+        rpr = new ReplacePatternRule("(A)(B)?","$12\\$$2");
+        assertEquals("A2$B A2$", rpr.transform("AB A"));
+        // named groups are handled by Matcher.replaceAll
+        rpr = new ReplacePatternRule("(?<x>A)","${x}${x}");
+        assertEquals("AAB", rpr.transform("AB"));
+        rpr = new ReplacePatternRule("(A)","$2");
+        String s = "B";
+        assertTrue(s == rpr.transform(s));
+        try {
+            rpr.transform("A");
+            assertTrue(false);
+        } catch(TransformationException e) {
+            assertTrue(true);
+        }
+        // matchers are not shared between threads
+        final ReplacePatternRule rule = new ReplacePatternRule("([AEIOU])([^AEIOU ]+)","$2$1");
+        final String[] inputs = new String[]{"ABC DEF", "OBERNAI", "UZES", "ILLE ET VILAINE"};
+        final String[] expected = new String[inputs.length];
+        for (int i = 0 ; i < inputs.length ; i++) {
+            expected[i] = Pattern.compile("([AEIOU])([^AEIOU ]+)").matcher(inputs[i]).replaceAll("$2$1");
+        }
+        final boolean[] ok = new boolean[]{true};
+        Thread[] threads = new Thread[8];
+        for (int t = 0 ; t < threads.length ; t++) {
+            threads[t] = new Thread() {
+                public void run() {
+                    try {
+                        for (int k = 0 ; k < 20000 ; k++) {
+                            int i = k % inputs.length;
+                            if (!expected[i].equals(rule.transform(inputs[i]))) ok[0] = false;
+                        }
+                    } catch(TransformationException e) {
+                        ok[0] = false;
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) thread.join();
+        assertTrue(ok[0]);
+    }
+    private void testLinearEngine() throws Exception {
+        // patterns with unbounded repetitions or lookarounds use the linear engine
+        assertTrue(LinearPattern.select(Pattern.compile("(?<=[AE]U?)ILL[IY]")) != null);
+        assertTrue(LinearPattern.select(Pattern.compile("([A-Z]+)\\b")) != null);
+        assertTrue(LinearPattern.select(Pattern.compile("\\bAGEN\\b")) == null);
+        assertTrue(LinearPattern.compile(Pattern.compile("([BDF])\\1")) == null);
+        assertTrue(LinearPattern.compile(Pattern.compile("(?<=([GQ]U)?I)LL")) == null);
+        String[][] rules = new String[][]{
+            {"(?<=[AE]U?)ILL[IY]", "y"},
+            {"EN(?=[^AEIOUY]*\\b)", "[$0]"},
+            {"(?i)(\\w+?)(E*)\\b", "$2$1"},
+            {"(?<!\\bS)(A|AU|EAU)+(X|S)?$", "o$2"},
+            {"(?:-| )*", "_"},
+            {"\\s+(D[EU]S?|LA)?\\s*", " $1 "}
+        };
+        String[] inputs = new String[]{"", "BEAUX", "SAINT MAUR DES FOSSES", "CHANTEILLY",
+                                       "  LE  PUY - EN - VELAY ", "aeaueeS", "FEUILLE\n", "ÉÈ EAU ç"};
+        for (String[] rule : rules) {
+            ReplacePatternRule rpr = new ReplacePatternRule(rule[0], rule[1]);
+            for (String input : inputs) {
+                assertEquals(rule[0] + " " + input,
+                             Pattern.compile(rule[0]).matcher(input).replaceAll(rule[1]),
+                             rpr.transform(input));
+            }
+        }
+        // no catastrophic backtracking
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0 ; i < 10000 ; i++) sb.append('A');
+        String s = sb.toString();
+        long t0 = System.currentTimeMillis();
+        assertTrue(s == new ReplacePatternRule("(?:A|AA)+B", "x").transform(s));
+        assertTrue(System.currentTimeMillis() - t0 < 5000);
+    }
+
 }
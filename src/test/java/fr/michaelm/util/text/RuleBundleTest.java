@@ -0,0 +1,121 @@
+/*
+ * (C) 2026 michael.michaud@free.fr
+ */
+
+package fr.michaelm.util.text;
+
+import fr.michaelm.util.AbstractTest;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.regex.Pattern;
+
+/**
+ * Test class for RuleBundle
+ *
+ * @author Micha&euml;l Michaud
+ * @version 0.1 (2026-10-19)
+ */
+public class RuleBundleTest extends AbstractTest {
+
+    public static void main(String[] args) {
+        new RuleBundleTest();
+    }
+
+    protected void maintest() throws Exception {
+        bundleTest();
+        flagsTest();
+    }
+
+    private void bundleTest() throws Exception {
+        File dir = new File(System.getProperty("java.io.tmpdir"), "rule_bundle_test");
+        dir.mkdirs();
+        write(new File(dir, "AFNOR.prs"), "\"\\bSAINTE?\\b\" = \"ST\"\n\"\\bRUE\\b\" = \"R\"\n");
+        write(new File(dir, "phonetic.prs"), "# test\n\"PH\" = \"F\"\n\"(?i)ou\" = \"U\"\n\"Y\" = \"I\"\n\"(A)I\" = \"$1Y\"\n");
+        write(new File(dir, "street.nrs"), "TO_ASCII38\nNORMALIZE_SPACES\nAFNOR\nphonetic.prs\n");
+        RuleRegistry.clearRegistry();
+        RuleRegistry.loadRules(dir.getPath());
+        RuleRegistry.enableCache("phonetic.prs", 100);
+        String[] names = new String[]{"AFNOR", "AFNOR.prs", "phonetic.prs", "street.nrs", "TO_ASCII38"};
+        String[] inputs = new String[]{"Rue Sainte Sophie", "RUE DU MOULIN", "  rue   de la  Paix  ", "Phare", ""};
+        String[][] expected = new String[names.length][inputs.length];
+        for (int i = 0 ; i < names.length ; i++) {
+            for (int j = 0 ; j < inputs.length ; j++) {
+                expected[i][j] = RuleRegistry.transforms(inputs[j], names[i]);
+            }
+        }
+        File bundle = new File(dir, "rules.bundle");
+        RuleRegistry.writeBundle(bundle);
+
+        RuleRegistry.clearRegistry();
+        RuleRegistry.loadBundle(bundle);
+        // rules are decoded on their first use
+        assertTrue(RuleRegistry.getRule("street.nrs").toString().endsWith("(not loaded)"));
+        assertTrue(RuleRegistry.getRule("TO_ASCII38") == RuleRegistry.TO_ASCII38);
+        for (int i = 0 ; i < names.length ; i++) {
+            for (int j = 0 ; j < inputs.length ; j++) {
+                assertEquals(names[i] + " " + inputs[j], expected[i][j],
+                             RuleRegistry.transforms(inputs[j], names[i]));
+            }
+        }
+        assertTrue(!RuleRegistry.getRule("street.nrs").toString().endsWith("(not loaded)"));
+        // unsupported rules are rejected
+        RuleRegistry.put("custom", new AbstractRule() {
+            public String transform(String s, Object context) {return s;}
+        });
+        try {
+            RuleRegistry.writeBundle(new File(dir, "custom.bundle"));
+            assertTrue(false);
+        } catch(IllegalArgumentException e) {
+            assertTrue(true);
+        }
+        RuleRegistry.clearRegistry();
+        for (File f : dir.listFiles()) f.delete();
+        dir.delete();
+    }
+
+    // inline flags are not applied to the whole pattern of a bundled rule
+    private void flagsTest() throws Exception {
+        File dir = new File(System.getProperty("java.io.tmpdir"), "rule_bundle_flags_test");
+        dir.mkdirs();
+        write(new File(dir, "AFNOR.prs"), "\"\\bRUE\\b\" = \"R\"\n");
+        write(new File(dir, "inline.prs"), "\"a(?i)b\" = \"X\"\n");
+        RuleRegistry.clearRegistry();
+        RuleRegistry.loadRules(dir.getPath());
+        assertEquals("Ab", RuleRegistry.transforms("Ab", "inline.prs"));
+        assertEquals("X", RuleRegistry.transforms("aB", "inline.prs"));
+        RuleRegistry.put("flags", new ReplacePatternRule("a(?i)b", Pattern.UNICODE_CASE, "Y"));
+        File bundle = new File(dir, "rules.bundle");
+        RuleRegistry.writeBundle(bundle);
+        RuleRegistry.clearRegistry();
+        RuleRegistry.loadBundle(bundle);
+        assertEquals("Ab", RuleRegistry.transforms("Ab", "inline.prs"));
+        assertEquals("X", RuleRegistry.transforms("aB", "inline.prs"));
+        assertEquals("Ab", RuleRegistry.transforms("Ab", "flags"));
+        assertEquals("Y", RuleRegistry.transforms("aB", "flags"));
+        // flags of a Pattern with inline flags are unknown
+        ReplacePatternRule rule = new ReplacePatternRule(Pattern.compile("a(?i)b"), "X");
+        assertEquals(-1, rule.getFlags());
+        assertEquals(Pattern.CASE_INSENSITIVE,
+                     new ReplacePatternRule(Pattern.compile("ab", Pattern.CASE_INSENSITIVE), "X").getFlags());
+        RuleRegistry.put("unknown", rule);
+        try {
+            RuleRegistry.writeBundle(new File(dir, "unknown.bundle"));
+            assertTrue(false);
+        } catch(IllegalArgumentException e) {
+            assertTrue(true);
+        }
+        RuleRegistry.clearRegistry();
+        for (File f : dir.listFiles()) f.delete();
+        dir.delete();
+    }
+
+    private static void write(File file, String content) throws IOException {
+        try (Writer writer = new FileWriter(file)) {
+            writer.write(content);
+        }
+    }
+
+}
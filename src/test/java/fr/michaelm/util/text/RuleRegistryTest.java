@@ -0,0 +1,201 @@
+/*
+ * (C) 2026 michael.michaud@free.fr
+ */
+
+package fr.michaelm.util.text;
+
+import fr.michaelm.util.AbstractTest;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Test class for RuleRegistry
+ *
+ * @author Micha&euml;l Michaud
+ * @version 0.1 (2026-10-19)
+ */
+public class RuleRegistryTest extends AbstractTest {
+
+    public static void main(String[] args) {
+        new RuleRegistryTest();
+    }
+
+    protected void maintest() throws Exception {
+        lazyLoadingTest();
+        reloadTest();
+        cachedReloadTest();
+        concurrencyTest();
+    }
+
+    private void lazyLoadingTest() throws Exception {
+        File dir = new File(System.getProperty("java.io.tmpdir"), "rule_registry_test");
+        dir.mkdirs();
+        write(new File(dir, "AFNOR.prs"), "\"\\bRUE\\b\" = \"R\"\n");
+        write(new File(dir, "phonetic.prs"), "\"PH\" = \"F\"\n");
+        write(new File(dir, "street.nrs"), "TO_UPPERCASE\nAFNOR\nphonetic.prs\n");
+        write(new File(dir, "a.nrs"), "TO_UPPERCASE\nb.nrs\n");
+        write(new File(dir, "b.nrs"), "a.nrs\n");
+        write(new File(dir, "bad.prs"), "A = B = C\n");
+        RuleRegistry.clearRegistry();
+        RuleRegistry.loadRules(dir.getPath());
+        // rules are registered, but not loaded
+        assertTrue(RuleRegistry.contains("street.nrs"));
+        assertTrue(!RuleRegistry.isLoaded("street.nrs"));
+        assertTrue(!RuleRegistry.isLoaded("AFNOR"));
+        assertTrue(RuleRegistry.isLoaded("TO_UPPERCASE"));
+        assertTrue(Arrays.asList(RuleRegistry.getRules()).contains("phonetic.prs"));
+        // dependencies are loaded with the rule
+        assertEquals("R DU FARE", RuleRegistry.transforms("rue du phare", "street.nrs"));
+        assertTrue(RuleRegistry.isLoaded("street.nrs"));
+        assertTrue(RuleRegistry.isLoaded("AFNOR"));
+        assertTrue(RuleRegistry.isLoaded("phonetic.prs"));
+        assertTrue(!RuleRegistry.isLoaded("AFNOR.prs"));
+        // cyclic dependencies are reported
+        try {
+            RuleRegistry.getRule("a.nrs");
+            assertTrue(false);
+        } catch(RuleCycleException e) {
+            assertEquals(Arrays.asList("a.nrs", "b.nrs", "a.nrs"), e.getCycle());
+        }
+        assertTrue(!RuleRegistry.isLoaded("a.nrs"));
+        // invalid rule files are reported when the rule is requested
+        try {
+            RuleRegistry.getRule("bad.prs");
+            assertTrue(false);
+        } catch(RuleNotFoundException e) {
+            assertTrue(!(e instanceof RuleCycleException) && e.getCause() != null);
+        }
+        try {
+            RuleRegistry.getRule("unknown.prs");
+            assertTrue(false);
+        } catch(RuleNotFoundException e) {
+            assertTrue(true);
+        }
+        RuleRegistry.clearRegistry();
+        for (File f : dir.listFiles()) f.delete();
+        dir.delete();
+    }
+
+    private void reloadTest() throws Exception {
+        File dir = new File(System.getProperty("java.io.tmpdir"), "rule_reload_test");
+        dir.mkdirs();
+        File phonetic = new File(dir, "phonetic.prs");
+        write(new File(dir, "AFNOR.prs"), "\"\\bRUE\\b\" = \"R\"\n");
+        write(phonetic, "\"PH\" = \"F\"\n");
+        write(new File(dir, "street.nrs"), "TO_UPPERCASE\nAFNOR\nphonetic.prs\n");
+        RuleRegistry.clearRegistry();
+        RuleRegistry.loadRules(dir.getPath());
+        assertEquals("R DU FARE", RuleRegistry.transforms("rue du phare", "street.nrs"));
+        Rule afnor = RuleRegistry.getRule("AFNOR");
+        // the modified rule and the rules depending on it are reloaded
+        write(phonetic, "\"PH\" = \"F\"\n\"E$\" = \"\"\n");
+        Set<String> reloaded = RuleRegistry.reloadRules(Collections.singleton(phonetic));
+        assertEquals(new HashSet<>(Arrays.asList("phonetic.prs", "street.nrs")), reloaded);
+        assertEquals("R DU FAR", RuleRegistry.transforms("rue du phare", "street.nrs"));
+        assertTrue(RuleRegistry.getRule("AFNOR") == afnor);
+        // an invalid file does not replace the previous rules
+        write(phonetic, "A = B = C\n");
+        try {
+            RuleRegistry.reloadRules(Collections.singleton(phonetic));
+            assertTrue(false);
+        } catch(RuleNotFoundException e) {
+            assertTrue(true);
+        }
+        assertEquals("R DU FAR", RuleRegistry.transforms("rue du phare", "street.nrs"));
+        // modified files are reloaded by the watcher
+        RuleRegistry.watchRules(dir.getPath());
+        try {
+            write(phonetic, "\"PH\" = \"F\"\n\"R$\" = \"\"\n");
+            String result = null;
+            for (int i = 0 ; i < 200 && !"R DU FARE".equals(result) ; i++) {
+                Thread.sleep(50);
+                result = RuleRegistry.transforms("rue du phare", "street.nrs");
+            }
+            assertEquals("R DU FARE", result);
+            assertEquals("FA", RuleRegistry.transforms("PHAR", "phonetic.prs"));
+        } finally {
+            RuleRegistry.stopWatching();
+        }
+        RuleRegistry.clearRegistry();
+        for (File f : dir.listFiles()) f.delete();
+        dir.delete();
+    }
+
+    private void cachedReloadTest() throws Exception {
+        File dir = new File(System.getProperty("java.io.tmpdir"), "rule_cached_reload_test");
+        dir.mkdirs();
+        File phonetic = new File(dir, "phonetic.prs");
+        write(new File(dir, "AFNOR.prs"), "\"\\bRUE\\b\" = \"R\"\n");
+        write(phonetic, "\"PH\" = \"F\"\n");
+        write(new File(dir, "street.nrs"), "TO_UPPERCASE\nAFNOR\nphonetic.prs\n");
+        RuleRegistry.clearRegistry();
+        RuleRegistry.loadRules(dir.getPath());
+        CachingRule cached = RuleRegistry.enableCache("phonetic.prs", 100);
+        assertEquals("R DU FARE", RuleRegistry.transforms("rue du phare", "street.nrs"));
+        assertTrue(cached.size() > 0);
+        // a cached file-based rule is reloaded with a new cache, and the
+        // rules depending on it are reloaded too
+        write(phonetic, "\"PH\" = \"F\"\n\"E$\" = \"\"\n");
+        Set<String> reloaded = RuleRegistry.reloadRules(Collections.singleton(phonetic));
+        assertEquals(new HashSet<>(Arrays.asList("phonetic.prs", "street.nrs")), reloaded);
+        Rule rule = RuleRegistry.getRule("phonetic.prs");
+        assertTrue(rule instanceof CachingRule && rule != cached);
+        assertEquals(100, ((CachingRule)rule).getMaxSize());
+        assertEquals("R DU FAR", RuleRegistry.transforms("rue du phare", "street.nrs"));
+        assertTrue(((CachingRule)rule).size() > 0);
+        // once disabled, the cache is not restored by a reload
+        RuleRegistry.disableCache("phonetic.prs");
+        RuleRegistry.reloadRules(Collections.singleton(phonetic));
+        assertTrue(!(RuleRegistry.getRule("phonetic.prs") instanceof CachingRule));
+        RuleRegistry.clearRegistry();
+        for (File f : dir.listFiles()) f.delete();
+        dir.delete();
+    }
+
+    private void concurrencyTest() throws Exception {
+        RuleRegistry.clearRegistry();
+        RuleRegistry.put("UPPER", RuleRegistry.TO_UPPERCASE);
+        final AtomicBoolean failed = new AtomicBoolean();
+        final CountDownLatch done = new CountDownLatch(4);
+        for (int t = 0 ; t < 4 ; t++) {
+            new Thread() {
+                public void run() {
+                    try {
+                        for (int i = 0 ; i < 20000 ; i++) {
+                            if (!"ABC".equals(RuleRegistry.transforms("abc", "UPPER"))) failed.set(true);
+                        }
+                    } catch(Exception e) {
+                        failed.set(true);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }.start();
+        }
+        for (int i = 0 ; i < 2000 ; i++) {
+            RuleRegistry.put("rule" + i, RuleRegistry.NEUTRAL);
+            if (i % 2 == 0) RuleRegistry.enableCache("UPPER", 10);
+            else RuleRegistry.disableCache("UPPER");
+        }
+        done.await();
+        assertTrue(!failed.get());
+        assertEquals(2001, RuleRegistry.getRules().length);
+        RuleRegistry.clearRegistry();
+    }
+
+    private static void write(File file, String content) throws IOException {
+        try (Writer writer = new FileWriter(file)) {
+            writer.write(content);
+        }
+    }
+
+}
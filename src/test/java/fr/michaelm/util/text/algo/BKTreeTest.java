@@ -6,6 +6,7 @@ package fr.michaelm.util.text.algo;
 
 
 import fr.michaelm.util.AbstractTest;
+import java.util.HashMap;
 
 /**
  * Test class for WLevenshteinDistanceTest
@@ -15,6 +16,7 @@ import fr.michaelm.util.AbstractTest;
  */
 // History
 // 0.1 (2011-05-01)
+// 0.2 (2026-10-19) compiled queries
 public class BKTreeTest extends AbstractTest {
 
     public static void main(String[] args) {
@@ -27,6 +29,8 @@ public class BKTreeTest extends AbstractTest {
         addTest(tree);
         findBestWordTest(tree);
         findBestWordTest2(tree);
+        compileTest();
+        levenshteinTreeTest();
     }
 
     private void addTest(BKTree tree) {
@@ -52,4 +56,42 @@ public class BKTreeTest extends AbstractTest {
         assertEquals(tree.findBestWordMatch("Bard-lespesmes"), "Bard-lespesmes");
     }
 
+    private static final String[] WORDS = new String[]{
+        "Bard-lès-Pesmes", "Barlès-Pesmes", "Barlès-Pèmes", "Bard-lespesmes",
+        "Barre-les-Pesmes", "Bard-lès-Pennes", "Bar-les-Pemmes", "Bars-l'epesmes",
+        "Bars-et-Pesmes", "Barré-Pesmes", "", "Bard", "Saint-Jean-de-la-Ruelle"
+    };
+
+    // a compiled query gives the same distances as editDistance
+    private void compileTest() {
+        EditDistance[] distances = new EditDistance[]{
+            LevenshteinDistance.LEVENSHTEIN_DISTANCE,
+            new WLevenshteinDistance(CostFunctions.frenchCosts)
+        };
+        for (EditDistance distance : distances) {
+            for (String s : WORDS) {
+                QueryDistance query = distance.compile(s);
+                assertEquals(s, query.getQuery());
+                for (String t : WORDS) {
+                    assertEquals(s + "/" + t, distance.editDistance(s, t), query.editDistance(t));
+                }
+            }
+        }
+    }
+
+    // BKTree queries give the same results as a brute force search
+    private void levenshteinTreeTest() {
+        BKTree tree = new BKTree(LevenshteinDistance.LEVENSHTEIN_DISTANCE);
+        for (String s : WORDS) tree.add(s);
+        for (int threshold = 0 ; threshold < 6 ; threshold++) {
+            HashMap<String,Integer> expected = new HashMap<>();
+            for (String s : WORDS) {
+                int d = LevenshteinDistance.LEVENSHTEIN_DISTANCE.editDistance("Bars-les-Pesmes", s);
+                if (d <= threshold) expected.put(s, d);
+            }
+            assertEquals("threshold " + threshold, expected, tree.query("Bars-les-Pesmes", threshold));
+        }
+        assertEquals(2, tree.find("Bars-les-Pesmes"));
+    }
+
 }
\ No newline at end of file
@@ -15,6 +15,7 @@ import static fr.michaelm.util.text.algo.DamarauLevenshteinDistance.*;
  */
 // History
 // 0.1 (2011-08-08)
+// 0.2 (2026-10-19) banded limited distances
 public class DamarauLevenshteinDistanceTest extends AbstractTest {
 
     public static void main(String[] args) {
@@ -29,6 +30,7 @@ public class DamarauLevenshteinDistanceTest extends AbstractTest {
     protected void maintest() throws Exception {
         //DamarauLevenshteinDistance.main(new String[0]);
         damlevtest();
+        limitTest();
         performanceTest();
     }
 
@@ -43,6 +45,23 @@ public class DamarauLevenshteinDistanceTest extends AbstractTest {
         assertTrue("damlevlim(abcdefghij, klmnopqrst, 2) = 2", damarauLevenshtein("abcdefghij", "klmnopqrst", 2) == 2);
     }
 
+    // limited distances are the unlimited ones bounded by the limit
+    private void limitTest() {
+        java.util.Random random = new java.util.Random(0);
+        int diff = 0;
+        for (int i = 0 ; i < 20000 ; i++) {
+            String s = StringUtil.randomString(random.nextInt(i % 10 == 0 ? 60 : 12), "abcde");
+            String t = StringUtil.randomString(random.nextInt(i % 10 == 0 ? 60 : 12), "abcde");
+            int limit = random.nextInt(8);
+            if (levenshtein(s, t, limit) != Math.min(levenshtein(s, t), limit)) diff++;
+            if (damarauLevenshtein(s, t, limit) != Math.min(damarauLevenshtein(s, t), limit)) diff++;
+        }
+        assertEquals("differences between limited and unlimited distances", diff, 0);
+        assertEquals(1, levenshtein("speling", "spelling", 3));
+        assertEquals(2, levenshtein("h", "hello", 2));
+        assertEquals(1, damarauLevenshtein("short", "shrt", 2));
+    }
+
     private void performanceTest() {
         String[] strings = new String[100000];
         for (int i = 0 ; i < strings.length ; i++) {
@@ -0,0 +1,91 @@
+/*
+ * (C) 2026 michael.michaud@free.fr
+ */
+
+package fr.michaelm.util.text.algo;
+
+import fr.michaelm.util.*;
+import java.util.Random;
+import static fr.michaelm.util.text.algo.LevenshteinDistance.LEVENSHTEIN_DISTANCE;
+
+/**
+ * Test class for LevenshteinDistance
+ *
+ * @author Micha&euml;l Michaud
+ * @version 0.1 (2026-10-19)
+ */
+public class LevenshteinDistanceTest extends AbstractTest {
+
+    public static void main(String[] args) {
+        new LevenshteinDistanceTest();
+    }
+
+    protected void maintest() throws Exception {
+        levenshteinTest();
+        bitParallelTest();
+        limitTest();
+    }
+
+    private void levenshteinTest() {
+        assertEquals(1, LEVENSHTEIN_DISTANCE.editDistance("michael", "mickael"));
+        assertEquals(2, LEVENSHTEIN_DISTANCE.editDistance("mikael", "michael"));
+        assertEquals(3, LEVENSHTEIN_DISTANCE.editDistance("kitten", "sitting"));
+        assertEquals(7, LEVENSHTEIN_DISTANCE.editDistance("", "mickael"));
+        assertEquals(7, LEVENSHTEIN_DISTANCE.editDistance("mickael", ""));
+        assertEquals(2, LEVENSHTEIN_DISTANCE.editDistance("Œuvre", "Oeuvre"));
+        assertEquals(0.5f, LEVENSHTEIN_DISTANCE.distance("abcd", "abef"));
+    }
+
+    // compares the bit-parallel algorithm with the dynamic programming one,
+    // for strings shorter and longer than 64 chars
+    private void bitParallelTest() {
+        Random random = new Random(0);
+        String[] alphabets = new String[]{"ab", "abcdefghijklmnopqrstuvwxyz", "aéŒ一b"};
+        int diff = 0;
+        for (int i = 0 ; i < 20000 ; i++) {
+            String alphabet = alphabets[i % alphabets.length];
+            int max = i % 4 == 0 ? 200 : 70;
+            String s = StringUtil.randomString(random.nextInt(max), alphabet);
+            String t = StringUtil.randomString(random.nextInt(max), alphabet);
+            if (LEVENSHTEIN_DISTANCE.editDistance(s, t) != levenshtein(s, t)) diff++;
+        }
+        assertEquals("differences between bit-parallel and dynamic programming distances", diff, 0);
+    }
+
+    private void limitTest() {
+        assertEquals(3, LEVENSHTEIN_DISTANCE.editDistance("kitten", "sitting", 5));
+        assertEquals(2, LEVENSHTEIN_DISTANCE.editDistance("kitten", "sitting", 2));
+        assertEquals(2, LEVENSHTEIN_DISTANCE.editDistance("", "mickael", 2));
+        assertEquals(0, LEVENSHTEIN_DISTANCE.editDistance("abc", "abc", 0));
+        Random random = new Random(0);
+        int diff = 0;
+        for (int i = 0 ; i < 20000 ; i++) {
+            int max = i % 4 == 0 ? 200 : 20;
+            String s = StringUtil.randomString(random.nextInt(max), "abc");
+            String t = StringUtil.randomString(random.nextInt(max), "abc");
+            int limit = random.nextInt(i % 4 == 0 ? 100 : 10);
+            int expected = Math.min(levenshtein(s, t), limit);
+            if (LEVENSHTEIN_DISTANCE.editDistance(s, t, limit) != expected) diff++;
+            if (LEVENSHTEIN_DISTANCE.compile(s).editDistance(t, limit) != expected) diff++;
+        }
+        assertEquals("differences between limited and unlimited distances", diff, 0);
+    }
+
+    private static int levenshtein(String s, String t) {
+        int[] p = new int[s.length() + 1];
+        int[] d = new int[s.length() + 1];
+        for (int i = 0 ; i <= s.length() ; i++) p[i] = i;
+        for (int j = 1 ; j <= t.length() ; j++) {
+            d[0] = j;
+            for (int i = 1 ; i <= s.length() ; i++) {
+                int cost = s.charAt(i - 1) == t.charAt(j - 1) ? 0 : 1;
+                d[i] = Math.min(Math.min(d[i - 1] + 1, p[i] + 1), p[i - 1] + cost);
+            }
+            int[] tmp = p;
+            p = d;
+            d = tmp;
+        }
+        return p[s.length()];
+    }
+
+}
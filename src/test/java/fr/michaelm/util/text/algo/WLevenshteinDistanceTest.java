@@ -14,6 +14,9 @@ import fr.michaelm.util.*;
  */
 // History
 // 0.1 (2011-05-01)
+// 0.2 (2026-10-19) limited distance
+// 0.3 (2026-10-19) comparison with the full matrix computation
+// 0.4 (2026-10-19) compiled cost tables
 public class WLevenshteinDistanceTest extends AbstractTest {
 
     public static void main(String[] args) {
@@ -24,6 +27,9 @@ public class WLevenshteinDistanceTest extends AbstractTest {
         testDefault();
         testCaseInsensitive();
         testFrench();
+        testLimit();
+        testMatrix();
+        testCostTable();
         performanceTest();
     }
 
@@ -68,6 +74,85 @@ public class WLevenshteinDistanceTest extends AbstractTest {
         assertEquals("Loto/L0t0", WLD.editDistance("Loto","L0t0"), 2);
     }
 
+    private void testLimit() {
+        WLevenshteinDistance WLD = new WLevenshteinDistance(CostFunctions.frenchCosts);
+        assertEquals("Michael/mishaïl", WLD.editDistance("Michael","mishaïl", 10), 4);
+        assertEquals("Michael/mishaïl", WLD.editDistance("Michael","mishaïl", 3), 3);
+        assertEquals("Michael/Michel", WLD.editDistance("Michael","Michel", 1), 1);
+        java.util.Random random = new java.util.Random(0);
+        int diff = 0;
+        for (int i = 0 ; i < 10000 ; i++) {
+            String s = StringUtil.randomString(random.nextInt(12), "aàeéEs -'o0");
+            String t = StringUtil.randomString(random.nextInt(12), "aàeéEs -'o0");
+            int limit = random.nextInt(20);
+            if (WLD.editDistance(s, t, limit) != Math.min(WLD.editDistance(s, t), limit)) diff++;
+        }
+        assertEquals("differences between limited and unlimited distances", diff, 0);
+    }
+
+    // compares the two rows computation with the full matrix one
+    private void testMatrix() {
+        LevenshteinCosts[] costs = new LevenshteinCosts[]{
+            CostFunctions.defaultCosts, CostFunctions.caseIgnore, CostFunctions.frenchCosts
+        };
+        java.util.Random random = new java.util.Random(0);
+        int diff = 0;
+        for (int i = 0 ; i < 10000 ; i++) {
+            int max = i % 10 == 0 ? 100 : 12;
+            String s = StringUtil.randomString(random.nextInt(max), "aàeéEs -'o0");
+            String t = StringUtil.randomString(random.nextInt(max), "aàeéEs -'o0");
+            LevenshteinCosts c = costs[i % costs.length];
+            if (new WLevenshteinDistance(c).editDistance(s, t) != matrix(c, s, t)) diff++;
+        }
+        assertEquals("differences between two rows and full matrix distances", diff, 0);
+    }
+
+    // compiled costs are the same as the original ones, in and out of the
+    // alphabet
+    private void testCostTable() {
+        CostTable table = CostFunctions.frenchCostTable();
+        assertTrue(table == CostFunctions.frenchCostTable());
+        assertEquals(CostTable.LATIN_ALPHABET.length(), table.size());
+        assertEquals(-1, table.id('\u4E00'));
+        int diff = 0;
+        for (char c1 = 0 ; c1 < 0x200 ; c1++) {
+            if (table.insDelCost(c1) != CostFunctions.frenchCosts.insDelCost(c1)) diff++;
+            for (char c2 = 0 ; c2 < 0x200 ; c2++) {
+                if (table.substCost(c1, c2) != CostFunctions.frenchCosts.substCost(c1, c2)) diff++;
+            }
+        }
+        assertEquals("differences between compiled and original costs", diff, 0);
+        WLevenshteinDistance WLD = new WLevenshteinDistance(CostFunctions.frenchCosts);
+        WLevenshteinDistance compiled = new WLevenshteinDistance(table);
+        assertEquals("Michael/mishaïl", compiled.editDistance("Michael","mishaïl"), 4);
+        java.util.Random random = new java.util.Random(0);
+        for (int i = 0 ; i < 10000 ; i++) {
+            String s = StringUtil.randomString(random.nextInt(12), "aàeéEs -'o0Œ\u4E00");
+            String t = StringUtil.randomString(random.nextInt(12), "aàeéEs -'o0Œ\u4E00");
+            int limit = random.nextInt(20);
+            if (compiled.editDistance(s, t) != WLD.editDistance(s, t)) diff++;
+            if (compiled.editDistance(s, t, limit) != WLD.editDistance(s, t, limit)) diff++;
+        }
+        assertEquals("differences between compiled and original costs distances", diff, 0);
+        CostTable small = CostTable.compile(table, "abc");
+        assertTrue(small.getCosts() == CostFunctions.frenchCosts);
+        assertEquals(5, small.substCost('a', 'z'));
+    }
+
+    private static int matrix(LevenshteinCosts costs, String v1, String v2) {
+        int[][] d = new int[v1.length() + 1][v2.length() + 1];
+        for (int i = 0 ; i <= v1.length() ; i++) d[i][0] = i;
+        for (int j = 0 ; j <= v2.length() ; j++) d[0][j] = j;
+        for (int i = 1 ; i <= v1.length() ; i++) {
+            for (int j = 1 ; j <= v2.length() ; j++) {
+                char c1 = v1.charAt(i - 1), c2 = v2.charAt(j - 1);
+                d[i][j] = Math.min(d[i - 1][j - 1] + costs.substCost(c1, c2),
+                          Math.min(d[i - 1][j] + costs.insDelCost(c1), d[i][j - 1] + costs.insDelCost(c2)));
+            }
+        }
+        return d[v1.length()][v2.length()];
+    }
+
     private void performanceTest() {
         String[] strings = new String[10000];
         for (int i = 0 ; i < strings.length ; i++) {
@@ -76,6 +161,7 @@ public class WLevenshteinDistanceTest extends AbstractTest {
         WLevenshteinDistance WLD = new WLevenshteinDistance();
         WLevenshteinDistance WLD1 = new WLevenshteinDistance(CostFunctions.caseIgnore);
         WLevenshteinDistance WLD2 = new WLevenshteinDistance(CostFunctions.frenchCosts);
+        WLevenshteinDistance WLD3 = new WLevenshteinDistance(CostFunctions.frenchCostTable());
         String ref = "miChael";
         long t0 = System.currentTimeMillis();
         for (int i = 0 ; i < 10000 ; i++) {
@@ -92,6 +178,11 @@ public class WLevenshteinDistanceTest extends AbstractTest {
             WLD2.editDistance(ref, strings[i]);
         }
         System.out.println("10000 distance avec WLD2 " + (System.currentTimeMillis()-t0) + "ms");
+        t0 = System.currentTimeMillis();
+        for (int i = 0 ; i < 10000 ; i++) {
+            WLD3.editDistance(ref, strings[i]);
+        }
+        System.out.println("10000 distance avec WLD3 (table) " + (System.currentTimeMillis()-t0) + "ms");
     }
 
 }
\ No newline at end of file